@@ -0,0 +1,119 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Visita a fronte d'onda della parte triangolare superiore di una matrice di
+ * programmazione dinamica su intervalli {@code [i, j]}. Le celle
+ * {@code (i, i + d)} con la stessa distanza {@code d} formano un'anti-diagonale
+ * e, per le ricorrenze in cui ogni cella dipende solo da intervalli più corti,
+ * possono essere calcolate in qualsiasi ordine. Ogni diagonale viene quindi
+ * suddivisa in segmenti che sono calcolati in parallelo su un
+ * {@code ForkJoinPool}; la diagonale successiva parte solo quando la
+ * precedente è stata completata.
+ *
+ */
+final class AntiDiagonalWavefront {
+
+    /**
+     * Lavoro stimato (numero di celle per lunghezza della diagonale) sotto il
+     * quale un segmento di diagonale viene calcolato sequenzialmente.
+     */
+    static final long DEFAULT_THRESHOLD = 1L << 15;
+
+    /**
+     * Calcolo di un segmento di una diagonale.
+     */
+    interface DiagonalSegment {
+        /**
+         * Calcola le celle {@code (i, i + d)} per {@code from <= i < to}.
+         *
+         * @param d
+         *                 la distanza {@code j - i} delle celle della diagonale
+         * @param from
+         *                 primo indice di riga del segmento (incluso)
+         * @param to
+         *                 ultimo indice di riga del segmento (escluso)
+         */
+        void compute(int d, int from, int to);
+    }
+
+    private AntiDiagonalWavefront() {
+    }
+
+    /**
+     * Visita le diagonali da {@code firstDiagonal} a {@code length - 1}, in
+     * ordine crescente oppure decrescente.
+     *
+     * @param length
+     *                          la dimensione della matrice
+     * @param firstDiagonal
+     *                          la prima diagonale da calcolare
+     * @param reverse
+     *                          se true le diagonali sono visitate dalla più
+     *                          lunga alla più corta (per le ricorrenze "outside")
+     * @param parallel
+     *                          se false tutto il calcolo avviene nel thread
+     *                          chiamante
+     * @param threshold
+     *                          lavoro sotto il quale un segmento non viene più
+     *                          suddiviso
+     * @param segment
+     *                          il calcolo da eseguire su ogni segmento
+     */
+    static void run(int length, int firstDiagonal, boolean reverse,
+            boolean parallel, long threshold, DiagonalSegment segment) {
+        for (int s = firstDiagonal; s < length; s++) {
+            int d = reverse ? length - 1 - (s - firstDiagonal) : s;
+            int cells = length - d;
+            if (!parallel || (long) cells * (d + 1) <= threshold)
+                segment.compute(d, 0, cells);
+            else
+                ForkJoinPool.commonPool().invoke(new SegmentTask(segment, d, 0,
+                        cells, Math.max(1, threshold / (d + 1))));
+        }
+    }
+
+    /*
+     * Task che divide ricorsivamente un segmento di diagonale a metà finché il
+     * numero di celle non scende sotto la soglia.
+     */
+    private static final class SegmentTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final DiagonalSegment segment;
+
+        private final int d;
+
+        private final int from;
+
+        private final int to;
+
+        private final long minCells;
+
+        SegmentTask(DiagonalSegment segment, int d, int from, int to,
+                long minCells) {
+            this.segment = segment;
+            this.d = d;
+            this.from = from;
+            this.to = to;
+            this.minCells = minCells;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= minCells) {
+                segment.compute(d, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SegmentTask(segment, d, from, middle, minCells),
+                    new SegmentTask(segment, d, middle, to, minCells));
+        }
+    }
+
+}
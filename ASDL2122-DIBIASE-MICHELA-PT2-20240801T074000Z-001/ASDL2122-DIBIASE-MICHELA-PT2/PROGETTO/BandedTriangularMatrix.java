@@ -0,0 +1,94 @@
+package it.unicam.cs.asdl2122.pt2;
+
+/**
+ * Matrice a banda che memorizza solo le celle {@code (i, j)} con
+ * {@code j - i <= span}, in celle a 16 bit. Le righe sono memorizzate una
+ * dopo l'altra in un unico array: la riga i ha
+ * {@code min(span, size - 1 - i) + 1} celle, quindi la memoria è
+ * {@code O(size * span)}. Le celle fuori dalla banda non devono essere lette
+ * né scritte, tranne quelle con {@code j < i} che valgono 0.
+ *
+ */
+class BandedTriangularMatrix extends NussinovMatrix {
+
+    private final int span;
+
+    // le righe 0, ..., full - 1 hanno tutte span + 1 celle
+    private final int full;
+
+    private final char[] cells;
+
+    /**
+     * Crea una matrice a banda con tutte le celle a 0.
+     *
+     * @param size
+     *                     la dimensione della matrice
+     * @param span
+     *                     la massima differenza {@code j - i} delle celle
+     *                     memorizzate
+     * @param maxValue
+     *                     il massimo valore che verrà scritto nella matrice
+     *
+     * @throws IllegalArgumentException
+     *                                      se span è negativo, se i valori
+     *                                      non entrano in celle a 16 bit o se
+     *                                      le celle della banda non entrano
+     *                                      in un array
+     */
+    BandedTriangularMatrix(int size, int span, int maxValue) {
+        super(size);
+        if (span < 0)
+            throw new IllegalArgumentException("Banda negativa: " + span);
+        if (maxValue > Character.MAX_VALUE)
+            throw new IllegalArgumentException("Banda troppo larga (" + span
+                    + ") per celle a 16 bit");
+        long count = cellCount(size, span);
+        if (count > MAX_ARRAY_LENGTH)
+            throw new IllegalArgumentException("Banda troppo larga (" + span
+                    + ") per una sequenza di " + size + " nucleotidi");
+        this.span = Math.min(span, Math.max(0, size - 1));
+        this.full = size - this.span;
+        this.cells = new char[(int) count];
+    }
+
+    /**
+     * Numero di celle memorizzate da una matrice a banda.
+     *
+     * @param size
+     *                 la dimensione della matrice
+     * @param span
+     *                 la massima differenza {@code j - i} delle celle
+     *                 memorizzate
+     * @return il numero di celle {@code (i, j)} con
+     *         {@code 0 <= j - i <= span}
+     */
+    static long cellCount(int size, int span) {
+        long s = Math.min(span, Math.max(0, size - 1));
+        // size - s righe piene, poi le ultime s righe con s, s - 1, ..., 1 celle
+        return (size - s) * (s + 1) + s * (s + 1) / 2;
+    }
+
+    @Override
+    int get(int i, int j) {
+        if (j < i)
+            return 0;
+        return cells[start(i) + j - i];
+    }
+
+    @Override
+    void set(int i, int j, int value) {
+        cells[start(i) + j - i] = (char) value;
+    }
+
+    /*
+     * Posizione della cella (i, i): dopo le righe piene, la riga
+     * full + t è preceduta da t righe di span, span - 1, ... celle.
+     */
+    private int start(int i) {
+        if (i < full)
+            return i * (span + 1);
+        long t = i - full;
+        return (int) ((long) full * (span + 1) + t * span - t * (t - 1) / 2);
+    }
+
+}
@@ -0,0 +1,344 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Folding di grandi quantità di sequenze con l'algoritmo di
+ * Nussinov-Jacobson su un insieme fisso di thread. Ogni thread tiene una
+ * propria matrice, che viene solo ingrandita e riusata per tutte le sequenze
+ * che calcola: a regime il folding di una sequenza alloca solo gli array
+ * lineari dei partner, dei legami e la struttura restituita, invece di una
+ * nuova matrice quadratica.
+ *
+ * Le sequenze sono lette dallo stream di ingresso solo man mano che i
+ * risultati vengono consumati, con al più qualche sequenza per thread in
+ * calcolo o in attesa, quindi anche lotti più grandi della memoria possono
+ * essere trattati. Le strutture sono uguali a quelle di
+ * {@code NussinovFolder}; ogni risultato riporta anche la posizione della sua
+ * sequenza nell'ingresso.
+ *
+ * Le sequenze la cui matrice supera un numero massimo di celle sono affidate a
+ * un {@code NussinovFolder}, con una matrice propria che viene rilasciata alla
+ * fine: una sola sequenza lunga non lascia così una matrice enorme in ogni
+ * thread per tutta la vita del servizio.
+ *
+ */
+public class BatchFolder implements AutoCloseable {
+
+    /*
+     * Sequenze in calcolo o in attesa per ogni thread.
+     */
+    private static final int TASKS_PER_WORKER = 4;
+
+    /**
+     * Numero massimo predefinito di celle della matrice riusata da ogni
+     * thread: 2^24 celle a 16 bit, cioè 32 MiB, per sequenze fino a 5792
+     * nucleotidi.
+     */
+    public static final long DEFAULT_MAX_BUFFERED_CELLS = 1L << 24;
+
+    private final int workers;
+
+    private final long maxBufferedCells;
+
+    private final ExecutorService pool;
+
+    /*
+     * Matrice riusata da ogni thread del pool.
+     */
+    private final ThreadLocal<GrowableTriangularMatrix> buffers = ThreadLocal
+            .withInitial(GrowableTriangularMatrix::new);
+
+    /**
+     * Costruisce un servizio di folding con un thread per processore.
+     */
+    public BatchFolder() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Costruisce un servizio di folding con un numero dato di thread.
+     *
+     * @param workers
+     *                    il numero di thread
+     *
+     * @throws IllegalArgumentException
+     *                                      se il numero di thread non è
+     *                                      positivo
+     */
+    public BatchFolder(int workers) {
+        this(workers, DEFAULT_MAX_BUFFERED_CELLS);
+    }
+
+    /**
+     * Costruisce un servizio di folding con un numero dato di thread e un
+     * numero massimo di celle per la matrice riusata da ogni thread. Dato che
+     * la matrice cresce raddoppiando, ogni thread ne tiene al più il doppio.
+     *
+     * @param workers
+     *                             il numero di thread
+     * @param maxBufferedCells
+     *                             il numero massimo di celle della matrice di
+     *                             un thread; le sequenze che ne richiedono di
+     *                             più sono calcolate da un
+     *                             {@code NussinovFolder}
+     *
+     * @throws IllegalArgumentException
+     *                                      se il numero di thread o di celle
+     *                                      non è positivo, o se le celle non
+     *                                      entrano in un array
+     */
+    public BatchFolder(int workers, long maxBufferedCells) {
+        if (workers <= 0)
+            throw new IllegalArgumentException(
+                    "Il numero di thread deve essere positivo");
+        if (maxBufferedCells <= 0 || maxBufferedCells > NussinovMatrix.MAX_ARRAY_LENGTH)
+            throw new IllegalArgumentException(
+                    "Numero massimo di celle non valido: " + maxBufferedCells);
+        this.workers = workers;
+        this.maxBufferedCells = maxBufferedCells;
+        this.pool = Executors.newFixedThreadPool(workers, task -> {
+            Thread thread = new Thread(task, "BatchFolder-worker");
+            // un servizio non chiuso non impedisce la terminazione della JVM
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Restituisce il numero di thread del servizio.
+     *
+     * @return il numero di thread
+     */
+    public int getWorkers() {
+        return this.workers;
+    }
+
+    /**
+     * Restituisce il numero massimo di celle della matrice riusata da ogni
+     * thread.
+     *
+     * @return il numero massimo di celle
+     */
+    public long getMaxBufferedCells() {
+        return this.maxBufferedCells;
+    }
+
+    /**
+     * Esegue il folding di una collezione di sequenze.
+     *
+     * @param sequences
+     *                      le sequenze di nucleotidi
+     * @param order
+     *                      l'ordine in cui restituire le strutture
+     * @return lo stream dei risultati, uno per sequenza
+     *
+     * @throws NullPointerException
+     *                                   se la collezione o l'ordine sono nulli
+     * @throws IllegalStateException
+     *                                   se il servizio è stato chiuso
+     */
+    public Stream<BatchResult> fold(Collection<String> sequences,
+            BatchResultOrder order) {
+        if (sequences == null)
+            throw new NullPointerException("Collezione di sequenze nulla");
+        return fold(sequences.stream(), order);
+    }
+
+    /**
+     * Esegue il folding di uno stream di sequenze. Lo stream restituito è
+     * pigro: le sequenze vengono lette e inviate ai thread solo quando
+     * servono altri risultati. Se il folding di una sequenza fallisce, per
+     * esempio per un nucleotide sconosciuto, l'eccezione viene rilanciata
+     * quando si arriva al suo risultato. Chiudere lo stream restituito
+     * annulla i calcoli ancora in corso. Se il servizio viene chiuso mentre
+     * lo stream è in uso, vengono restituiti i risultati delle sequenze già
+     * inviate ai thread; se poi restano sequenze da leggere viene lanciata
+     * {@code IllegalStateException}.
+     *
+     * @param sequences
+     *                      le sequenze di nucleotidi
+     * @param order
+     *                      l'ordine in cui restituire le strutture
+     * @return lo stream dei risultati, uno per sequenza
+     *
+     * @throws NullPointerException
+     *                                   se lo stream o l'ordine sono nulli
+     * @throws IllegalStateException
+     *                                   se il servizio è stato chiuso prima
+     *                                   della chiamata
+     */
+    public Stream<BatchResult> fold(Stream<String> sequences,
+            BatchResultOrder order) {
+        if (sequences == null)
+            throw new NullPointerException("Stream di sequenze nullo");
+        if (order == null)
+            throw new NullPointerException("Ordine dei risultati nullo");
+        if (pool.isShutdown())
+            throw new IllegalStateException("Il servizio di folding è stato chiuso");
+        Results results = new Results(sequences.iterator(), order);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(results,
+                Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(results::cancel);
+    }
+
+    /**
+     * Chiude il servizio: i calcoli già avviati vengono completati, ma non si
+     * possono inviare altre sequenze, neanche dagli stream restituiti in
+     * precedenza da {@code fold}.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /*
+     * Folding di una sequenza nella matrice del thread corrente: la colonna
+     * j viene calcolata intera con i partner di j, poi il traceback comune.
+     * Il limite di celle, al più la dimensione di un array, tiene anche i
+     * valori entro i 16 bit della matrice, perché nessuna cella supera n/2.
+     */
+    private SecondaryStructure foldOne(String primarySequence) {
+        if (primarySequence == null)
+            throw new NullPointerException(
+                    "Tentativo di eseguire il folding di una sequenza nulla");
+        String seq = primarySequence.toUpperCase().trim();
+        // check bases in the primary structure - IUPAC nucleotide codes
+        byte[] codes = Nucleotides.encode(seq);
+        int n = codes.length;
+        if (TriangularLayout.cellCount(n) > maxBufferedCells) {
+            NussinovFolder folder = new NussinovFolder(seq);
+            folder.fold();
+            return folder.getOneOptimalStructure();
+        }
+        GrowableTriangularMatrix matrix = buffers.get();
+        matrix.reset(n);
+        PairingPartners partners = new PairingPartners(codes);
+        for (int j = 1; j < n; j++)
+            matrix.fillColumn(j, 0, partners);
+        int[] pairs = NussinovFolder.traceback(matrix, partners, 0, n - 1);
+        return NussinovFolder.buildStructure(seq, pairs);
+    }
+
+    /*
+     * Risultati di un lotto: mantiene al più TASKS_PER_WORKER sequenze per
+     * thread inviate e non ancora restituite.
+     */
+    private final class Results implements Iterator<BatchResult> {
+
+        private final Iterator<String> input;
+
+        private final BatchResultOrder order;
+
+        private final CompletionService<BatchResult> completion;
+
+        /*
+         * Calcoli non ancora restituiti, in ordine di invio.
+         */
+        private final ArrayDeque<Future<BatchResult>> pending;
+
+        /*
+         * Posizione nell'ingresso della prossima sequenza da inviare.
+         */
+        private long nextIndex;
+
+        /*
+         * Vero se il pool ha rifiutato una sequenza perché il servizio è
+         * stato chiuso: non se ne inviano altre.
+         */
+        private boolean rejected;
+
+        Results(Iterator<String> input, BatchResultOrder order) {
+            this.input = input;
+            this.order = order;
+            this.completion = new ExecutorCompletionService<BatchResult>(pool);
+            this.pending = new ArrayDeque<Future<BatchResult>>();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!rejected && pending.size() < workers * TASKS_PER_WORKER
+                    && input.hasNext()) {
+                String sequence = input.next();
+                long index = nextIndex;
+                try {
+                    // solo i calcoli dell'ordine di completamento passano
+                    // dalla coda del CompletionService, che altrimenti
+                    // crescerebbe
+                    if (order == BatchResultOrder.COMPLETION)
+                        pending.add(completion
+                                .submit(() -> new BatchResult(index, foldOne(sequence))));
+                    else
+                        pending.add(pool.submit(() -> new BatchResult(index, foldOne(sequence))));
+                    nextIndex++;
+                } catch (RejectedExecutionException e) {
+                    // i calcoli già inviati vengono comunque restituiti
+                    rejected = true;
+                }
+            }
+            if (rejected && pending.isEmpty())
+                throw new IllegalStateException(
+                        "Il servizio di folding è stato chiuso prima della fine del lotto");
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public BatchResult next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Future<BatchResult> result;
+            if (order == BatchResultOrder.SUBMISSION)
+                result = pending.poll();
+            else {
+                try {
+                    result = completion.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Attesa dei risultati interrotta", e);
+                }
+                pending.remove(result);
+            }
+            return get(result);
+        }
+
+        void cancel() {
+            for (Future<BatchResult> result : pending)
+                result.cancel(true);
+            pending.clear();
+        }
+
+        private BatchResult get(Future<BatchResult> result) {
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Attesa dei risultati interrotta", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                if (cause instanceof Error)
+                    throw (Error) cause;
+                throw new IllegalStateException(cause);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,144 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di Test per la classe BatchFolder
+ *
+ */
+class BatchFolderTest {
+
+    @Test
+    final void testSubmissionOrder() {
+        List<String> sequences = randomSequences(new Random(43), 200);
+        try (BatchFolder batch = new BatchFolder(3)) {
+            List<BatchResult> results = batch
+                    .fold(sequences, BatchResultOrder.SUBMISSION)
+                    .collect(Collectors.toList());
+            assertEquals(sequences.size(), results.size());
+            for (int s = 0; s < sequences.size(); s++) {
+                assertEquals(s, results.get(s).getIndex());
+                SecondaryStructure structure = results.get(s).getStructure();
+                assertEquals(sequences.get(s), structure.getPrimarySequence());
+                NussinovFolder folder = new NussinovFolder(sequences.get(s));
+                assertEquals(folder.computeOptimalCardinality(), structure.getCardinality());
+                assertFalse(structure.isPseudoknotted());
+            }
+        }
+    }
+
+    @Test
+    final void testCompletionOrder() {
+        List<String> sequences = randomSequences(new Random(47), 200);
+        try (BatchFolder batch = new BatchFolder(2)) {
+            List<BatchResult> expected = batch
+                    .fold(sequences, BatchResultOrder.SUBMISSION)
+                    .collect(Collectors.toList());
+            List<BatchResult> results = batch
+                    .fold(sequences.stream(), BatchResultOrder.COMPLETION)
+                    .collect(Collectors.toList());
+            // stesse strutture, in un ordine qualsiasi, ognuna associata alla
+            // sua sequenza dalla posizione
+            assertEquals(expected.size(), results.size());
+            boolean[] seen = new boolean[sequences.size()];
+            for (BatchResult result : results) {
+                int index = (int) result.getIndex();
+                assertFalse(seen[index]);
+                seen[index] = true;
+                assertEquals(expected.get(index).getStructure(), result.getStructure());
+            }
+        }
+    }
+
+    @Test
+    final void testLazyInput() {
+        // uno stream infinito: vengono lette solo le sequenze necessarie
+        try (BatchFolder batch = new BatchFolder(2)) {
+            List<BatchResult> results = batch
+                    .fold(Stream.generate(() -> "GGGAAACCC"), BatchResultOrder.SUBMISSION)
+                    .limit(5).collect(Collectors.toList());
+            assertEquals(5, results.size());
+            for (BatchResult result : results)
+                assertEquals(3, result.getStructure().getCardinality());
+        }
+    }
+
+    @Test
+    final void testUnbufferedFallback() {
+        List<String> sequences = randomSequences(new Random(53), 100);
+        // le sequenze oltre 13 nucleotidi superano le 100 celle
+        try (BatchFolder batch = new BatchFolder(2, 100)) {
+            assertEquals(100, batch.getMaxBufferedCells());
+            List<BatchResult> results = batch
+                    .fold(sequences, BatchResultOrder.SUBMISSION)
+                    .collect(Collectors.toList());
+            for (int s = 0; s < sequences.size(); s++) {
+                NussinovFolder folder = new NussinovFolder(sequences.get(s));
+                assertEquals(folder.computeOptimalCardinality(),
+                        results.get(s).getStructure().getCardinality());
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new BatchFolder(1, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchFolder(1, Integer.MAX_VALUE));
+    }
+
+    @Test
+    final void testErrors() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchFolder(0));
+        BatchFolder batch = new BatchFolder(1);
+        List<String> sequences = new ArrayList<String>();
+        sequences.add("GCAU");
+        sequences.add("GCXU");
+        Iterator<BatchResult> results = batch
+                .fold(sequences, BatchResultOrder.SUBMISSION).iterator();
+        assertEquals(2, results.next().getStructure().getCardinality());
+        assertThrows(IllegalArgumentException.class, () -> results.next());
+        assertThrows(NullPointerException.class,
+                () -> batch.fold(sequences, null));
+        batch.close();
+        assertThrows(IllegalStateException.class,
+                () -> batch.fold(sequences, BatchResultOrder.COMPLETION));
+    }
+
+    @Test
+    final void testCloseWhileFolding() {
+        BatchFolder batch = new BatchFolder(1);
+        // con un thread al più 4 sequenze sono inviate e non restituite
+        Iterator<BatchResult> results = batch
+                .fold(Stream.generate(() -> "GGGAAACCC").limit(10),
+                        BatchResultOrder.SUBMISSION)
+                .iterator();
+        assertEquals(0, results.next().getIndex());
+        batch.close();
+        // le sequenze già inviate vengono restituite, le altre no
+        for (int s = 1; s < 4; s++) {
+            assertTrue(results.hasNext());
+            assertEquals(s, results.next().getIndex());
+        }
+        assertThrows(IllegalStateException.class, () -> results.hasNext());
+    }
+
+    /*
+     * Sequenze di lunghezze molto diverse, in modo che le matrici dei thread
+     * vengano riusate sia ingrandendole sia per sequenze più corte.
+     */
+    private static List<String> randomSequences(Random random, int count) {
+        List<String> sequences = new ArrayList<String>();
+        for (int s = 0; s < count; s++) {
+            int length = random.nextInt(4) == 0 ? random.nextInt(150) : random.nextInt(20);
+            sequences.add(RandomSequences.generate(random, length));
+        }
+        return sequences;
+    }
+
+}
@@ -0,0 +1,48 @@
+package it.unicam.cs.asdl2122.pt2;
+
+/**
+ * Risultato del folding di una sequenza di un lotto calcolato da un
+ * {@code BatchFolder}: la struttura ottima e la posizione della sequenza
+ * nell'ingresso, che permette di associare i risultati alle sequenze anche
+ * quando sono restituiti nell'ordine di completamento.
+ *
+ */
+public class BatchResult {
+
+    private final long index;
+
+    private final SecondaryStructure structure;
+
+    /**
+     * Costruisce il risultato di una sequenza.
+     *
+     * @param index
+     *                      la posizione della sequenza nell'ingresso, a
+     *                      partire da 0
+     * @param structure
+     *                      la struttura ottima della sequenza
+     */
+    BatchResult(long index, SecondaryStructure structure) {
+        this.index = index;
+        this.structure = structure;
+    }
+
+    /**
+     * Restituisce la posizione della sequenza nell'ingresso del lotto.
+     *
+     * @return la posizione della sequenza, a partire da 0
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Restituisce la struttura ottima della sequenza.
+     *
+     * @return la struttura ottima della sequenza
+     */
+    public SecondaryStructure getStructure() {
+        return structure;
+    }
+
+}
@@ -0,0 +1,22 @@
+package it.unicam.cs.asdl2122.pt2;
+
+/**
+ * Ordine in cui un {@code BatchFolder} restituisce le strutture delle
+ * sequenze di un lotto.
+ *
+ */
+public enum BatchResultOrder {
+
+    /**
+     * Le strutture sono restituite nell'ordine in cui sono state fornite le
+     * sequenze: una sequenza lenta trattiene i risultati delle successive.
+     */
+    SUBMISSION,
+
+    /**
+     * Le strutture sono restituite appena vengono calcolate, in un ordine che
+     * può cambiare da un'esecuzione all'altra.
+     */
+    COMPLETION
+
+}
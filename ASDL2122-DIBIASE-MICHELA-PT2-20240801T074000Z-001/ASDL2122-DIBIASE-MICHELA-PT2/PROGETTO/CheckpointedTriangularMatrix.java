@@ -0,0 +1,96 @@
+package it.unicam.cs.asdl2122.pt2;
+
+/**
+ * Matrice triangolare a memoria ridotta per ricorrenze in cui, lungo ogni riga,
+ * il valore di una cella supera quello della cella precedente di 0 oppure di
+ * 1, come accade per il numero massimo di legami di Nussinov: aggiungere un
+ * nucleotide a destra di un intervallo non toglie legami e ne aggiunge al più
+ * uno.
+ *
+ * Ogni riga memorizza un bit per cella, la differenza rispetto alla cella a
+ * sinistra, raggruppato in parole da 64 bit; per ogni parola viene mantenuto
+ * come punto di controllo il valore assoluto della cella che la precede. Il
+ * valore di una cella viene ricalcolato su richiesta dal punto di controllo
+ * della sua parola più il numero di bit accesi fino alla cella. La memoria
+ * scende a circa 1,5 bit per cella, contro i 16 o 32 bit delle matrici
+ * compatte, in cambio di qualche operazione in più per ogni lettura.
+ *
+ * Le celle di ogni riga devono essere scritte da sinistra a destra, una sola
+ * volta: è l'ordine di tutti i riempimenti di {@code NussinovFolder}. Righe
+ * diverse possono essere scritte in parallelo.
+ *
+ */
+class CheckpointedTriangularMatrix extends NussinovMatrix {
+
+    private final long[] bits;
+
+    private final int[] checkpoints;
+
+    private final int[] rowStarts;
+
+    CheckpointedTriangularMatrix(int size) {
+        super(size);
+        long words = wordCount(size);
+        if (words > MAX_ARRAY_LENGTH)
+            throw new IllegalArgumentException("Sequenza troppo lunga ("
+                    + size + " nucleotidi) per una matrice in memoria");
+        this.bits = new long[(int) words];
+        this.checkpoints = new int[(int) words];
+        this.rowStarts = new int[size];
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            rowStarts[i] = next;
+            next += wordsInRow(size, i);
+        }
+    }
+
+    /**
+     * Restituisce i byte occupati da una matrice di dimensione data.
+     *
+     * @param size
+     *                 la dimensione della matrice
+     * @return la memoria occupata in byte
+     */
+    static long bytes(int size) {
+        return wordCount(size) * (Long.BYTES + Integer.BYTES)
+                + (long) size * Integer.BYTES;
+    }
+
+    private static long wordCount(int size) {
+        long words = 0;
+        for (int i = 0; i < size; i++)
+            words += wordsInRow(size, i);
+        return words;
+    }
+
+    private static int wordsInRow(int size, int i) {
+        return (size - i + 63) >>> 6;
+    }
+
+    @Override
+    int get(int i, int j) {
+        if (j < i)
+            return 0;
+        int t = j - i;
+        int word = rowStarts[i] + (t >>> 6);
+        // bit da 0 a t % 64 compresi
+        long mask = -1L >>> (63 - (t & 63));
+        return checkpoints[word] + Long.bitCount(bits[word] & mask);
+    }
+
+    @Override
+    void set(int i, int j, int value) {
+        int t = j - i;
+        int word = rowStarts[i] + (t >>> 6);
+        int previous = get(i, j - 1);
+        if ((t & 63) == 0)
+            checkpoints[word] = previous;
+        int difference = value - previous;
+        if (difference < 0 || difference > 1)
+            throw new IllegalStateException("Valori non crescenti di 0 o 1 nella riga "
+                    + i + ": " + previous + ", " + value);
+        if (difference == 1)
+            bits[word] |= 1L << (t & 63);
+    }
+
+}
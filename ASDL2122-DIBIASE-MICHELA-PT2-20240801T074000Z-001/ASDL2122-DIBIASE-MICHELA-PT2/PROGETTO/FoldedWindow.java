@@ -0,0 +1,60 @@
+package it.unicam.cs.asdl2122.pt2;
+
+/**
+ * Risultato del folding di una finestra di una sequenza: la posizione della
+ * finestra, il massimo numero di legami deboli e una struttura secondaria
+ * ottima della sottosequenza della finestra.
+ *
+ */
+public final class FoldedWindow {
+
+    private final int start;
+
+    private final SecondaryStructure structure;
+
+    FoldedWindow(int start, SecondaryStructure structure) {
+        this.start = start;
+        this.structure = structure;
+    }
+
+    /**
+     * Restituisce la posizione, nella sequenza completa, del primo nucleotide
+     * della finestra.
+     *
+     * @return la posizione di inizio, a partire da 1
+     */
+    public int getStart() {
+        return this.start;
+    }
+
+    /**
+     * Restituisce la posizione, nella sequenza completa, dell'ultimo
+     * nucleotide della finestra.
+     *
+     * @return la posizione di fine, a partire da 1
+     */
+    public int getEnd() {
+        return this.start + structure.getPrimarySequence().length() - 1;
+    }
+
+    /**
+     * Restituisce il massimo numero di legami deboli nella finestra.
+     *
+     * @return la cardinalità di una struttura ottima della finestra
+     */
+    public int getScore() {
+        return structure.getCardinality();
+    }
+
+    /**
+     * Restituisce una struttura secondaria ottima della sottosequenza della
+     * finestra; le posizioni dei legami sono relative alla finestra, a partire
+     * da 1.
+     *
+     * @return una struttura ottima della finestra
+     */
+    public SecondaryStructure getStructure() {
+        return this.structure;
+    }
+
+}
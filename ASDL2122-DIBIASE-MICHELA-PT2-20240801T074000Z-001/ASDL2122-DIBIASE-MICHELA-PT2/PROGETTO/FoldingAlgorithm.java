@@ -48,4 +48,18 @@ public interface FoldingAlgorithm {
      */
     public SecondaryStructure getOneOptimalStructure();
 
+    /**
+     * Calcola solo la cardinalità di una struttura secondaria ottima, senza
+     * ricostruire la struttura. Le implementazioni possono evitare il
+     * traceback e l'allocazione dei legami; l'implementazione di default
+     * esegue il folding completo.
+     *
+     * @return la cardinalità di una struttura secondaria ottima per la
+     *         sequenza di nucleotidi oggetto di questo algoritmo
+     */
+    public default int computeOptimalCardinality() {
+        fold();
+        return getOneOptimalStructure().getCardinality();
+    }
+
 }
\ No newline at end of file
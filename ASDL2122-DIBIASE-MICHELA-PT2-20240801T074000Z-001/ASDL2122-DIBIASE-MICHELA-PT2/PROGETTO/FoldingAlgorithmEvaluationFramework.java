@@ -13,8 +13,10 @@ import java.util.Random;
  * Applica diversi algoritmi di folding alle stesse sequenze di nucleotidi di
  * lunghezza crescente. Per ogni lunghezza genera un certo numero dato di
  * sequenze casuali. I dati relativi al numero di confronti, il tempo di
- * esecuzione in nanosecondi di ogni algoritmo su ogni sequenza sono scritti su
- * un file .csv (Comma Separated Values). In un altro file .csv sono riportate
+ * esecuzione in nanosecondi di ogni algoritmo su ogni sequenza, sia per il
+ * folding completo sia per il calcolo del solo valore ottimo (per gli
+ * algoritmi che ne hanno uno), sono scritti su un file .csv (Comma Separated
+ * Values). In un altro file .csv sono riportate
  * le sequenze generate.
  * 
  * @author Luca Tesei
@@ -48,6 +50,10 @@ public class FoldingAlgorithmEvaluationFramework {
         List<FoldingAlgorithm> algs = new ArrayList<FoldingAlgorithm>();
         // Inserisco gli algoritmi che voglio testare
         algs.add(new NussinovFolder(""));
+        algs.add(new FourRussiansNussinovFolder(""));
+        algs.add(new SparseNussinovFolder(""));
+        algs.add(new ValiantNussinovFolder(""));
+        algs.add(new ZukerFolder(""));
         // Creo una lista di stringhe (inizialmente vuote) per contenere le
         // copie delle sequenze
         // di cui fare il folding, una per ogni algoritmo
@@ -58,6 +64,8 @@ public class FoldingAlgorithmEvaluationFramework {
         o.print("SeqId,");
         for (FoldingAlgorithm a : algs) {
             o.print(a.getName() + "Folding Tns,");
+            if (hasScoreOnlyFold(a))
+                o.print(a.getName() + "Score Tns,");
         }
         o.print("\n"); // Fine riga
         sequences.print("SeqId,");
@@ -141,8 +149,10 @@ public class FoldingAlgorithmEvaluationFramework {
                         System.exit(1);
                     }
                     Object object = null;
+                    Object scoreObject = null;
                     try {
                         object = ctor.newInstance(lists.get(idx));
+                        scoreObject = ctor.newInstance(lists.get(idx));
                     } catch (InstantiationException | IllegalAccessException
                             | IllegalArgumentException
                             | InvocationTargetException e) {
@@ -163,6 +173,15 @@ public class FoldingAlgorithmEvaluationFramework {
                     // debug System.out.println(result.getL().toString());
                     // Scrivo sul file di output
                     o.print(elapsedTimeNano + ",");
+                    // Misuro separatamente il calcolo del solo valore ottimo,
+                    // su un'altra istanza con la stessa sequenza
+                    if (hasScoreOnlyFold(a)) {
+                        FoldingAlgorithm scoreFoldingAlgorithmInstance = (FoldingAlgorithm) scoreObject;
+                        startTimeNano = System.nanoTime();
+                        scoreFoldingAlgorithmInstance.computeOptimalCardinality();
+                        elapsedTimeNano = System.nanoTime() - startTimeNano;
+                        o.print(elapsedTimeNano + ",");
+                    }
                     idx++;
                 }
                 o.print("\n"); // Fine riga
@@ -173,4 +192,18 @@ public class FoldingAlgorithmEvaluationFramework {
         sequences.close();
     } // end main
 
+    /*
+     * Un algoritmo che non ridefinisce computeOptimalCardinality() esegue il
+     * folding completo: il tempo del solo valore ottimo non avrebbe senso e
+     * la sua colonna viene omessa.
+     */
+    private static boolean hasScoreOnlyFold(FoldingAlgorithm a) {
+        try {
+            return a.getClass().getMethod("computeOptimalCardinality")
+                    .getDeclaringClass() != FoldingAlgorithm.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
 }
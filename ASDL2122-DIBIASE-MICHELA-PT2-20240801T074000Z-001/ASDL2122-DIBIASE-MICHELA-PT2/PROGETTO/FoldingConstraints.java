@@ -0,0 +1,224 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.util.HashSet;
+import java.util.Set;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Vincoli sulle strutture secondarie cercate da un algoritmo di folding: una
+ * lunghezza minima delle forcine, cioè del numero di nucleotidi non legati
+ * racchiusi da un legame, posizioni che devono restare non legate, posizioni
+ * che devono essere legate e legami vietati.
+ *
+ * La numerazione delle posizioni dei nucleotidi in una sequenza inizia da 1.
+ *
+ */
+public final class FoldingConstraints {
+
+    private final int length;
+
+    private int minHairpin;
+
+    private final boolean[] forcedUnpaired;
+
+    private final boolean[] forcedPaired;
+
+    private final Set<WeakBond> forbiddenBonds;
+
+    /**
+     * Costruisce un insieme di vincoli vuoto per le sequenze di una certa
+     * lunghezza: le forcine possono avere lunghezza 0 e ogni legame ammesso
+     * dai nucleotidi è permesso.
+     *
+     * @param length
+     *                   la lunghezza delle sequenze a cui si applicano i
+     *                   vincoli
+     *
+     * @throws IllegalArgumentException
+     *                                      se la lunghezza è negativa
+     */
+    public FoldingConstraints(int length) {
+        if (length < 0)
+            throw new IllegalArgumentException(
+                    "Lunghezza della sequenza negativa: " + length);
+        this.length = length;
+        this.minHairpin = 0;
+        this.forcedUnpaired = new boolean[length];
+        this.forcedPaired = new boolean[length];
+        this.forbiddenBonds = new HashSet<WeakBond>();
+    }
+
+    /**
+     * Restituisce la lunghezza delle sequenze a cui si applicano i vincoli.
+     *
+     * @return la lunghezza delle sequenze
+     */
+    public int getLength() {
+        return this.length;
+    }
+
+    /**
+     * Restituisce il minimo numero di nucleotidi racchiusi da un legame.
+     *
+     * @return la lunghezza minima delle forcine
+     */
+    public int getMinHairpin() {
+        return this.minHairpin;
+    }
+
+    /**
+     * Imposta il minimo numero di nucleotidi racchiusi da un legame: un legame
+     * {@code (i, j)} è ammesso solo se {@code j - i > minHairpin}.
+     *
+     * @param minHairpin
+     *                       la lunghezza minima delle forcine
+     *
+     * @throws IllegalArgumentException
+     *                                      se minHairpin è negativo
+     */
+    public void setMinHairpin(int minHairpin) {
+        if (minHairpin < 0)
+            throw new IllegalArgumentException(
+                    "La lunghezza minima delle forcine non può essere negativa");
+        this.minHairpin = minHairpin;
+    }
+
+    /**
+     * Impone che il nucleotide in una posizione resti non legato.
+     *
+     * @param position
+     *                     la posizione, a partire da 1
+     *
+     * @throws IllegalArgumentException
+     *                                      se la posizione non è nella
+     *                                      sequenza o se è già stato imposto
+     *                                      che sia legata
+     */
+    public void forceUnpaired(int position) {
+        checkPosition(position);
+        if (forcedPaired[position - 1])
+            throw new IllegalArgumentException("La posizione " + position
+                    + " è già vincolata a essere legata");
+        forcedUnpaired[position - 1] = true;
+    }
+
+    /**
+     * Impone che il nucleotide in una posizione sia legato.
+     *
+     * @param position
+     *                     la posizione, a partire da 1
+     *
+     * @throws IllegalArgumentException
+     *                                      se la posizione non è nella
+     *                                      sequenza o se è già stato imposto
+     *                                      che non sia legata
+     */
+    public void forcePaired(int position) {
+        checkPosition(position);
+        if (forcedUnpaired[position - 1])
+            throw new IllegalArgumentException("La posizione " + position
+                    + " è già vincolata a non essere legata");
+        forcedPaired[position - 1] = true;
+    }
+
+    /**
+     * Vieta un legame.
+     *
+     * @param bond
+     *                 il legame da vietare
+     *
+     * @throws NullPointerException
+     *                                      se il legame è nullo
+     * @throws IllegalArgumentException
+     *                                      se il legame non è nella sequenza
+     */
+    public void forbidBond(WeakBond bond) {
+        if (bond == null)
+            throw new NullPointerException("Tentativo di vietare un legame nullo");
+        checkPosition(bond.getJ());
+        forbiddenBonds.add(bond);
+    }
+
+    /**
+     * Determina se il nucleotide in una posizione deve restare non legato.
+     *
+     * @param position
+     *                     la posizione, a partire da 1
+     * @return true se la posizione deve restare non legata
+     *
+     * @throws IllegalArgumentException
+     *                                      se la posizione non è nella
+     *                                      sequenza
+     */
+    public boolean isForcedUnpaired(int position) {
+        checkPosition(position);
+        return forcedUnpaired[position - 1];
+    }
+
+    /**
+     * Determina se il nucleotide in una posizione deve essere legato.
+     *
+     * @param position
+     *                     la posizione, a partire da 1
+     * @return true se la posizione deve essere legata
+     *
+     * @throws IllegalArgumentException
+     *                                      se la posizione non è nella
+     *                                      sequenza
+     */
+    public boolean isForcedPaired(int position) {
+        checkPosition(position);
+        return forcedPaired[position - 1];
+    }
+
+    /**
+     * Determina se un legame è ammesso dai vincoli: non è vietato, non
+     * coinvolge posizioni che devono restare non legate e racchiude almeno
+     * {@code getMinHairpin()} nucleotidi. Non controlla che i nucleotidi
+     * possano legarsi.
+     *
+     * @param bond
+     *                 il legame
+     * @return true se il legame è ammesso dai vincoli
+     *
+     * @throws NullPointerException
+     *                                      se il legame è nullo
+     * @throws IllegalArgumentException
+     *                                      se il legame non è nella sequenza
+     */
+    public boolean allows(WeakBond bond) {
+        if (bond == null)
+            throw new NullPointerException("Legame nullo");
+        checkPosition(bond.getJ());
+        return bond.getJ() - bond.getI() > minHairpin
+                && !forcedUnpaired[bond.getI() - 1]
+                && !forcedUnpaired[bond.getJ() - 1]
+                && !forbiddenBonds.contains(bond);
+    }
+
+    /*
+     * Determina se c'è almeno una posizione che deve essere legata.
+     */
+    boolean hasForcedPaired() {
+        for (boolean paired : forcedPaired)
+            if (paired)
+                return true;
+        return false;
+    }
+
+    /*
+     * Legami vietati, da usare solo in lettura.
+     */
+    Set<WeakBond> getForbiddenBonds() {
+        return forbiddenBonds;
+    }
+
+    private void checkPosition(int position) {
+        if (position < 1 || position > length)
+            throw new IllegalArgumentException("Posizione " + position
+                    + " non valida per una sequenza di " + length
+                    + " nucleotidi");
+    }
+
+}
@@ -0,0 +1,59 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di Test per la classe FoldingConstraints
+ *
+ */
+class FoldingConstraintsTest {
+
+    @Test
+    final void testFoldingConstraints() {
+        assertThrows(IllegalArgumentException.class, () -> new FoldingConstraints(-1));
+        FoldingConstraints constraints = new FoldingConstraints(10);
+        assertEquals(10, constraints.getLength());
+        assertEquals(0, constraints.getMinHairpin());
+        assertTrue(constraints.allows(new WeakBond(1, 2)));
+    }
+
+    @Test
+    final void testSetMinHairpin() {
+        FoldingConstraints constraints = new FoldingConstraints(10);
+        assertThrows(IllegalArgumentException.class, () -> constraints.setMinHairpin(-1));
+        constraints.setMinHairpin(3);
+        assertEquals(3, constraints.getMinHairpin());
+        assertFalse(constraints.allows(new WeakBond(1, 4)));
+        assertTrue(constraints.allows(new WeakBond(1, 5)));
+    }
+
+    @Test
+    final void testForcedPositions() {
+        FoldingConstraints constraints = new FoldingConstraints(10);
+        constraints.forceUnpaired(2);
+        constraints.forcePaired(3);
+        assertTrue(constraints.isForcedUnpaired(2));
+        assertFalse(constraints.isForcedPaired(2));
+        assertTrue(constraints.isForcedPaired(3));
+        assertThrows(IllegalArgumentException.class, () -> constraints.forcePaired(2));
+        assertThrows(IllegalArgumentException.class, () -> constraints.forceUnpaired(3));
+        assertThrows(IllegalArgumentException.class, () -> constraints.forceUnpaired(0));
+        assertThrows(IllegalArgumentException.class, () -> constraints.isForcedPaired(11));
+        assertFalse(constraints.allows(new WeakBond(2, 8)));
+        assertTrue(constraints.allows(new WeakBond(3, 8)));
+    }
+
+    @Test
+    final void testForbidBond() {
+        FoldingConstraints constraints = new FoldingConstraints(10);
+        assertThrows(NullPointerException.class, () -> constraints.forbidBond(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> constraints.forbidBond(new WeakBond(1, 11)));
+        constraints.forbidBond(new WeakBond(1, 10));
+        assertFalse(constraints.allows(new WeakBond(1, 10)));
+        assertTrue(constraints.allows(new WeakBond(1, 9)));
+    }
+
+}
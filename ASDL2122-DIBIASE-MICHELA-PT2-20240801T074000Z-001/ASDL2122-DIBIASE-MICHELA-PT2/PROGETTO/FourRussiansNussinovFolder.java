@@ -0,0 +1,210 @@
+package it.unicam.cs.asdl2122.pt2;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Implementazione dell'algoritmo di Nussinov-Jacobson con la tecnica dei
+ * "Quattro Russi" (Frid e Gusfield), che calcola in tempo
+ * {@code O(n^3 / log n)} una struttura secondaria senza pseudonodi con un
+ * numero massimo di legami deboli.
+ *
+ * La matrice viene calcolata con la ricorrenza equivalente
+ * {@code N(i,j) = max(N(i+1,j-1) + legame(i,j), max_{i<k<=j} N(i,k-1) + N(k,j))}
+ * procedendo per colonne. Lungo una riga i valori crescono di al più 1 a ogni
+ * passo e lungo una colonna decrescono di al più 1, quindi un gruppo di q
+ * valori consecutivi è descritto dal primo valore e da un vettore di q - 1
+ * bit. Il massimo della seconda parte della ricorrenza su un gruppo di q
+ * indici k si ottiene allora con una sola consultazione di una tabella
+ * precalcolata indicizzata dai due vettori di bit.
+ *
+ */
+public class FourRussiansNussinovFolder implements FoldingAlgorithm {
+
+    /*
+     * Massima dimensione dei gruppi: i vettori hanno al più 8 bit e la tabella
+     * ha al più 2^16 elementi.
+     */
+    private static final int MAX_GROUP_SIZE = 9;
+
+    private final String primarySequence;
+
+    private final byte[] codes;
+
+    private SecondaryStructure optimalSubstructure;
+
+    private NussinovMatrix nussinovJacobson;
+
+    /**
+     * Costruisce un solver che utilizza l'algoritmo di Nussinov-Jacobson con
+     * la tecnica dei Quattro Russi.
+     *
+     * @param primarySequence
+     *                            la sequenza di nucleotidi di cui fare il
+     *                            folding
+     *
+     * @throws IllegalArgumentException
+     *                                      se la primarySequence contiene dei
+     *                                      codici di nucleotidi sconosciuti
+     * @throws NullPointerException
+     *                                      se la sequenza di nucleotidi è nulla
+     */
+    public FourRussiansNussinovFolder(String primarySequence) {
+        if (primarySequence == null)
+            throw new NullPointerException(
+                    "Tentativo di costruire un solutore Nussinov a partire da una sequenza nulla");
+        String seq = primarySequence.toUpperCase().trim();
+        // check bases in the primary structure - IUPAC nucleotide codes
+        this.codes = Nucleotides.encode(seq);
+        this.primarySequence = seq;
+        this.optimalSubstructure = null;
+    }
+
+    @Override
+    public String getName() {
+        return "FourRussiansNussinovFolder";
+    }
+
+    @Override
+    public String getSequence() {
+        return this.primarySequence;
+    }
+
+    @Override
+    public void fold() {
+        PairingPartners partners = fill();
+        int[] pairs = NussinovFolder.traceback(nussinovJacobson, partners, 0,
+                primarySequence.length() - 1);
+        optimalSubstructure = NussinovFolder.buildStructure(primarySequence, pairs);
+    }
+
+    @Override
+    public int computeOptimalCardinality() {
+        fill();
+        return nussinovJacobson.get(0, primarySequence.length() - 1);
+    }
+
+    private PairingPartners fill() {
+        int n = primarySequence.length();
+        nussinovJacobson = NussinovMatrix.create(n, TriangularLayout.ROW_MAJOR, n / 2);
+        int q = groupSize(n);
+        byte[] table = buildTable(q);
+        int groups = n / q + 1;
+        // rowVectors[i][g]: differenze di N(i, k - 1) per i k del gruppo g;
+        // columnVector[g]: differenze di N(k, j) per i k del gruppo g nella
+        // colonna corrente
+        char[][] rowVectors = new char[n][groups];
+        char[] columnVector = new char[groups];
+        for (int j = 1; j < n; j++) {
+            for (int i = j - 1; i >= 0; i--) {
+                nussinovJacobson.set(i, j, computeCell(i, j, q, table,
+                        rowVectors[i], columnVector));
+                // il gruppo che inizia in i è completo nella colonna j
+                if (i % q == 0 && i + q - 1 <= j)
+                    columnVector[i / q] = columnBits(i, j, q);
+            }
+            // la colonna j = g * q + q - 2 è l'ultima di cui hanno bisogno i
+            // vettori di riga del gruppo g
+            if ((j + 2) % q == 0) {
+                int g = (j + 2) / q - 1;
+                for (int i = 0; i < g * q; i++)
+                    rowVectors[i][g] = rowBits(i, g * q, q);
+            }
+        }
+        return new PairingPartners(codes);
+    }
+
+    private int computeCell(int i, int j, int q, byte[] table,
+            char[] rowVector, char[] columnVector) {
+        int best = nussinovJacobson.get(i + 1, j - 1);
+        if (Nucleotides.canPair(codes[i], codes[j]))
+            best++;
+        // gruppi interamente contenuti negli indici k in [i + 1, j]
+        int firstGroup = (i + q) / q;
+        int lastGroup = (j + 1) / q - 1;
+        if (firstGroup > lastGroup)
+            return Math.max(best, split(i, j, i + 1, j));
+        best = Math.max(best, split(i, j, i + 1, firstGroup * q - 1));
+        for (int g = firstGroup; g <= lastGroup; g++) {
+            int k = g * q;
+            int val = nussinovJacobson.get(i, k - 1) + nussinovJacobson.get(k, j)
+                    + table[(rowVector[g] << (q - 1)) | columnVector[g]];
+            if (val > best)
+                best = val;
+        }
+        return Math.max(best, split(i, j, (lastGroup + 1) * q, j));
+    }
+
+    /*
+     * Massimo diretto di N(i, k - 1) + N(k, j) per from <= k <= to.
+     */
+    private int split(int i, int j, int from, int to) {
+        int best = 0;
+        for (int k = from; k <= to; k++)
+            best = Math.max(best, nussinovJacobson.get(i, k - 1) + nussinovJacobson.get(k, j));
+        return best;
+    }
+
+    /*
+     * Bit t - 1 acceso se N(i, start + t - 1) - N(i, start + t - 2) = 1.
+     */
+    private char rowBits(int i, int start, int q) {
+        int bits = 0;
+        for (int t = 1; t < q; t++)
+            bits |= (nussinovJacobson.get(i, start + t - 1)
+                    - nussinovJacobson.get(i, start + t - 2)) << (t - 1);
+        return (char) bits;
+    }
+
+    /*
+     * Bit t - 1 acceso se N(start + t - 1, j) - N(start + t, j) = 1.
+     */
+    private char columnBits(int start, int j, int q) {
+        int bits = 0;
+        for (int t = 1; t < q; t++)
+            bits |= (nussinovJacobson.get(start + t - 1, j)
+                    - nussinovJacobson.get(start + t, j)) << (t - 1);
+        return (char) bits;
+    }
+
+    /*
+     * Dimensione dei gruppi: circa log2(n), almeno 2.
+     */
+    static int groupSize(int n) {
+        int log = 31 - Integer.numberOfLeadingZeros(Math.max(1, n));
+        return Math.max(2, Math.min(MAX_GROUP_SIZE, log));
+    }
+
+    /*
+     * table[(a << (q - 1)) | b] è il massimo, per t fra 0 e q - 1, della
+     * differenza fra i bit accesi fra i primi t di a e quelli fra i primi t di
+     * b: l'incremento della riga meno il decremento della colonna.
+     */
+    static byte[] buildTable(int q) {
+        int vectors = 1 << (q - 1);
+        byte[] table = new byte[vectors * vectors];
+        for (int a = 0; a < vectors; a++)
+            for (int b = 0; b < vectors; b++) {
+                int best = 0;
+                int sum = 0;
+                for (int t = 0; t < q - 1; t++) {
+                    sum += ((a >> t) & 1) - ((b >> t) & 1);
+                    best = Math.max(best, sum);
+                }
+                table[(a << (q - 1)) | b] = (byte) best;
+            }
+        return table;
+    }
+
+    @Override
+    public boolean isFolded() {
+        return optimalSubstructure != null;
+    }
+
+    @Override
+    public SecondaryStructure getOneOptimalStructure() {
+        if (!isFolded())
+            throw new IllegalStateException();
+        return optimalSubstructure;
+    }
+
+}
@@ -0,0 +1,51 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di Test per la classe FourRussiansNussinovFolder
+ *
+ */
+class FourRussiansNussinovFolderTest {
+
+    @Test
+    final void testGetOneOptimalStructure() {
+        FourRussiansNussinovFolder folder = new FourRussiansNussinovFolder("GCACGACG");
+        assertThrows(IllegalStateException.class, () -> folder.getOneOptimalStructure());
+        folder.fold();
+        assertTrue(folder.isFolded());
+        assertEquals(3, folder.getOneOptimalStructure().getCardinality());
+    }
+
+    @Test
+    final void testSameCardinalityAsNussinovFolder() {
+        Random random = new Random(31);
+        for (int length = 0; length < 300; length += 13) {
+            String sequence = RandomSequences.generate(random, length);
+            NussinovFolder nussinov = new NussinovFolder(sequence);
+            nussinov.fold();
+            FourRussiansNussinovFolder fourRussians = new FourRussiansNussinovFolder(sequence);
+            fourRussians.fold();
+            SecondaryStructure structure = fourRussians.getOneOptimalStructure();
+            assertEquals(nussinov.getOneOptimalStructure().getCardinality(),
+                    structure.getCardinality());
+            assertFalse(structure.isPseudoknotted());
+        }
+    }
+
+    @Test
+    final void testBuildTable() {
+        // q = 3: vettori di 2 bit, il massimo è sul prefisso migliore
+        byte[] table = FourRussiansNussinovFolder.buildTable(3);
+        assertEquals(0, table[(0b00 << 2) | 0b00]);
+        assertEquals(2, table[(0b11 << 2) | 0b00]);
+        assertEquals(1, table[(0b01 << 2) | 0b10]);
+        assertEquals(0, table[(0b10 << 2) | 0b01]);
+        assertEquals(0, table[(0b00 << 2) | 0b11]);
+    }
+
+}
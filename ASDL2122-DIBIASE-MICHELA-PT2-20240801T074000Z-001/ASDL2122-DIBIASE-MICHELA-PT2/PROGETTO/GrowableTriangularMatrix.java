@@ -0,0 +1,107 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.util.Arrays;
+
+/**
+ * Matrice triangolare compatta a cui si possono aggiungere colonne a destra.
+ * Le celle sono memorizzate per colonne, in celle a 16 bit: la cella
+ * {@code (i, j)} è in posizione {@code j * (j + 1) / 2 + i}, quindi aggiungere
+ * la colonna n non sposta le celle esistenti. L'array viene riallocato
+ * raddoppiandone la capacità, con un costo ammortizzato costante per cella.
+ *
+ */
+class GrowableTriangularMatrix extends NussinovMatrix {
+
+    private char[] cells;
+
+    /**
+     * Crea una matrice vuota.
+     */
+    GrowableTriangularMatrix() {
+        super(0);
+        this.cells = new char[16];
+    }
+
+    /**
+     * Aggiunge una colonna, con le celle a 0, portando la dimensione a
+     * {@code size() + 1}.
+     *
+     * @throws IllegalStateException
+     *                                   se la matrice non entra più in un
+     *                                   array
+     */
+    void addColumn() {
+        long needed = TriangularLayout.cellCount(size() + 1);
+        if (needed > MAX_ARRAY_LENGTH)
+            throw new IllegalStateException("Sequenza troppo lunga ("
+                    + (size() + 1) + " nucleotidi) per una matrice in memoria");
+        if (needed > cells.length)
+            cells = Arrays.copyOf(cells,
+                    (int) Math.max(needed, Math.min(MAX_ARRAY_LENGTH, 2L * cells.length)));
+        setSize(size() + 1);
+    }
+
+    /**
+     * Riporta la matrice alla dimensione data per riusarla con un'altra
+     * sequenza, azzerando le celle {@code (i, i)}. L'array viene solo
+     * ingrandito, mai ridotto; le altre celle conservano i valori precedenti
+     * e devono essere tutte riscritte prima di essere lette.
+     *
+     * @param size
+     *                 la nuova dimensione della matrice
+     *
+     * @throws IllegalStateException
+     *                                   se la matrice non entra in un array
+     */
+    void reset(int size) {
+        long needed = TriangularLayout.cellCount(size);
+        if (needed > MAX_ARRAY_LENGTH)
+            throw new IllegalStateException("Sequenza troppo lunga (" + size
+                    + " nucleotidi) per una matrice in memoria");
+        if (needed > cells.length)
+            cells = new char[(int) Math.max(needed,
+                    Math.min(MAX_ARRAY_LENGTH, 2L * cells.length))];
+        setSize(size);
+        for (int i = 0; i < size; i++)
+            cells[index(i, i)] = 0;
+    }
+
+    @Override
+    int get(int i, int j) {
+        if (j < i)
+            return 0;
+        return cells[index(i, j)];
+    }
+
+    @Override
+    void set(int i, int j, int value) {
+        cells[index(i, j)] = (char) value;
+    }
+
+    /*
+     * La colonna j - 1 è contigua; le celle della riga i distano k fra la
+     * colonna k - 1 e la colonna k.
+     */
+    @Override
+    int maxSplit(int i, int j, int[] bonus) {
+        int column = index(0, j - 1);
+        // k = i: N(i, i - 1) = 0
+        int max = bonus[i] + (i < j - 1 ? cells[column + i + 1] : 0);
+        int left = index(i, i);
+        for (int k = i + 1; k < j - 1; k++) {
+            int val = cells[left] + cells[column + k + 1] + bonus[k];
+            if (val > max)
+                max = val;
+            left += k;
+        }
+        // k = j - 1: N(j, j - 1) = 0
+        if (j - 1 > i)
+            max = Math.max(max, cells[left] + bonus[j - 1]);
+        return max;
+    }
+
+    private static int index(int i, int j) {
+        return (int) ((long) j * (j + 1) / 2) + i;
+    }
+
+}
@@ -0,0 +1,169 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.util.Arrays;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Implementazione incrementale dell'algoritmo di Nussinov-Jacobson per
+ * sequenze i cui nucleotidi arrivano uno alla volta. La colonna j della
+ * matrice dipende solo dalle colonne precedenti, quindi aggiungere un
+ * nucleotide in fondo alla sequenza richiede solo il calcolo di una nuova
+ * colonna, in tempo {@code O(n^2)}, invece di un nuovo folding in tempo
+ * {@code O(n^3)}.
+ *
+ * Il massimo numero di legami della sequenza corrente è sempre disponibile in
+ * tempo costante; la struttura ottima viene ricostruita con il traceback solo
+ * quando si chiama {@code fold()}, che va ripetuto dopo ogni aggiunta.
+ *
+ */
+public class IncrementalNussinovFolder implements FoldingAlgorithm {
+
+    private final StringBuilder primarySequence;
+
+    private byte[] codes;
+
+    private SecondaryStructure optimalSubstructure;
+
+    private final GrowableTriangularMatrix nussinovJacobson;
+
+    /*
+     * pairBonus[b][k] è il contributo del legame fra la posizione k e un
+     * nucleotide di codice b, come in NussinovFolder
+     */
+    private final int[][] pairBonus;
+
+    /**
+     * Costruisce un solver incrementale per una sequenza inizialmente vuota.
+     */
+    public IncrementalNussinovFolder() {
+        this.primarySequence = new StringBuilder();
+        this.codes = new byte[16];
+        this.nussinovJacobson = new GrowableTriangularMatrix();
+        this.pairBonus = new int[Nucleotides.COUNT][codes.length];
+        this.optimalSubstructure = null;
+    }
+
+    /**
+     * Costruisce un solver incrementale a partire da una sequenza iniziale.
+     *
+     * @param primarySequence
+     *                            la sequenza iniziale di nucleotidi
+     *
+     * @throws IllegalArgumentException
+     *                                      se la primarySequence contiene dei
+     *                                      codici di nucleotidi sconosciuti
+     * @throws NullPointerException
+     *                                      se la sequenza di nucleotidi è nulla
+     */
+    public IncrementalNussinovFolder(String primarySequence) {
+        this();
+        if (primarySequence == null)
+            throw new NullPointerException(
+                    "Tentativo di costruire un solutore Nussinov a partire da una sequenza nulla");
+        append(primarySequence.trim());
+    }
+
+    /**
+     * Aggiunge un nucleotide in fondo alla sequenza e calcola la nuova colonna
+     * della matrice.
+     *
+     * @param base
+     *                 il nucleotide da aggiungere, maiuscolo o minuscolo
+     *
+     * @throws IllegalArgumentException
+     *                                      se il nucleotide è sconosciuto
+     */
+    public void append(char base) {
+        append(Nucleotides.code(Character.toUpperCase(base)));
+    }
+
+    /**
+     * Aggiunge dei nucleotidi in fondo alla sequenza, uno alla volta. Se un
+     * nucleotide è sconosciuto la sequenza non viene modificata.
+     *
+     * @param bases
+     *                  i nucleotidi da aggiungere, maiuscoli o minuscoli
+     *
+     * @throws IllegalArgumentException
+     *                                      se uno dei nucleotidi è sconosciuto
+     * @throws NullPointerException
+     *                                      se la sequenza da aggiungere è nulla
+     */
+    public void append(CharSequence bases) {
+        byte[] added = Nucleotides.encode(bases.toString().toUpperCase());
+        for (byte code : added)
+            append(code);
+    }
+
+    private void append(byte code) {
+        int j = primarySequence.length();
+        if (j == codes.length) {
+            codes = Arrays.copyOf(codes, 2 * j);
+            for (byte b = 0; b < Nucleotides.COUNT; b++)
+                pairBonus[b] = Arrays.copyOf(pairBonus[b], 2 * j);
+        }
+        nussinovJacobson.addColumn();
+        codes[j] = code;
+        for (byte b = 0; b < Nucleotides.COUNT; b++)
+            pairBonus[b][j] = Nucleotides.canPair(code, b) ? 1 : NussinovMatrix.NO_PAIR;
+        primarySequence.append(Nucleotides.base(code));
+        // colonna j, con la stessa ricorrenza di NussinovFolder
+        int[] bonus = pairBonus[code];
+        for (int i = j - 1; i >= 0; i--)
+            nussinovJacobson.set(i, j, Math.max(nussinovJacobson.get(i, j - 1),
+                    nussinovJacobson.maxSplit(i, j, bonus)));
+        optimalSubstructure = null;
+    }
+
+    /**
+     * Restituisce il massimo numero di legami deboli di una struttura
+     * secondaria senza pseudonodi della sequenza corrente, in tempo costante.
+     *
+     * @return il massimo numero di legami deboli
+     */
+    public int getOptimalCardinality() {
+        return nussinovJacobson.get(0, primarySequence.length() - 1);
+    }
+
+    @Override
+    public int computeOptimalCardinality() {
+        return getOptimalCardinality();
+    }
+
+    @Override
+    public String getName() {
+        return "IncrementalNussinovFolder";
+    }
+
+    @Override
+    public String getSequence() {
+        return primarySequence.toString();
+    }
+
+    /**
+     * Ricostruisce una struttura ottima della sequenza corrente dalla matrice
+     * già calcolata. Dopo un'aggiunta la struttura precedente non è più
+     * disponibile e {@code isFolded()} restituisce false.
+     */
+    @Override
+    public void fold() {
+        int n = primarySequence.length();
+        int[] pairs = NussinovFolder.traceback(nussinovJacobson,
+                new PairingPartners(Arrays.copyOf(codes, n)), 0, n - 1);
+        optimalSubstructure = NussinovFolder.buildStructure(getSequence(), pairs);
+    }
+
+    @Override
+    public boolean isFolded() {
+        return optimalSubstructure != null;
+    }
+
+    @Override
+    public SecondaryStructure getOneOptimalStructure() {
+        if (!isFolded())
+            throw new IllegalStateException();
+        return optimalSubstructure;
+    }
+
+}
@@ -0,0 +1,53 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di Test per la classe IncrementalNussinovFolder
+ *
+ */
+class IncrementalNussinovFolderTest {
+
+    @Test
+    final void testAppendMatchesNussinovFolder() {
+        Random random = new Random(90);
+        IncrementalNussinovFolder incremental = new IncrementalNussinovFolder();
+        assertEquals(0, incremental.getOptimalCardinality());
+        StringBuilder sb = new StringBuilder();
+        for (int length = 1; length <= 150; length++) {
+            char base = "agucAGUC".charAt(random.nextInt(8));
+            sb.append(Character.toUpperCase(base));
+            incremental.append(base);
+            assertEquals(sb.toString(), incremental.getSequence());
+            assertFalse(incremental.isFolded());
+            NussinovFolder folder = new NussinovFolder(sb.toString());
+            folder.fold();
+            int cardinality = folder.getOneOptimalStructure().getCardinality();
+            assertEquals(cardinality, incremental.getOptimalCardinality());
+            if (length % 10 == 0) {
+                incremental.fold();
+                SecondaryStructure structure = incremental.getOneOptimalStructure();
+                assertEquals(cardinality, structure.getCardinality());
+                assertFalse(structure.isPseudoknotted());
+            }
+        }
+    }
+
+    @Test
+    final void testAppendCharSequence() {
+        IncrementalNussinovFolder folder = new IncrementalNussinovFolder("GCAC");
+        folder.append("gacg");
+        assertEquals("GCACGACG", folder.getSequence());
+        assertEquals(3, folder.getOptimalCardinality());
+        assertThrows(IllegalStateException.class, () -> folder.getOneOptimalStructure());
+        assertThrows(IllegalArgumentException.class, () -> folder.append("GCX"));
+        assertEquals("GCACGACG", folder.getSequence());
+        assertThrows(IllegalArgumentException.class, () -> folder.append('T'));
+        assertThrows(NullPointerException.class, () -> new IncrementalNussinovFolder(null));
+    }
+
+}
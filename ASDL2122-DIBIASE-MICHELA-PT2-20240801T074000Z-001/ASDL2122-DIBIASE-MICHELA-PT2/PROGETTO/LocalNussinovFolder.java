@@ -0,0 +1,182 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.util.Arrays;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Folding locale con l'algoritmo di Nussinov-Jacobson: trova una struttura
+ * secondaria senza pseudonodi con il massimo numero di legami deboli fra
+ * quelle in cui ogni legame {@code (i, j)} ha {@code j - i <= maxSpan}.
+ *
+ * Vengono calcolate solo le celle {@code N(i, j)} con {@code j - i <= maxSpan},
+ * in una matrice a banda: in questi intervalli ogni legame rispetta già il
+ * limite. I legami più esterni della sequenza sono poi scelti con la
+ * ricorrenza unidimensionale
+ * {@code F(j) = max(F(j - 1), max_{j - maxSpan <= k < j} F(k - 1) + N(k + 1, j - 1) + 1)}
+ * dove k varia fra i partner di j. Il tempo è {@code O(n * maxSpan^2)} e la
+ * memoria {@code O(n * maxSpan)}, quindi si possono trattare sequenze di
+ * milioni di nucleotidi con limiti di qualche centinaio.
+ *
+ */
+public class LocalNussinovFolder implements FoldingAlgorithm {
+
+    private final String primarySequence;
+
+    private final byte[] codes;
+
+    private final int maxSpan;
+
+    private SecondaryStructure optimalSubstructure;
+
+    private NussinovMatrix nussinovJacobson;
+
+    /*
+     * prefix[j + 1] è il massimo numero di legami nel prefisso [0, j]
+     */
+    private int[] prefix;
+
+    /**
+     * Costruisce un solver locale che utilizza l'algoritmo di
+     * Nussinov-Jacobson.
+     *
+     * @param primarySequence
+     *                            la sequenza di nucleotidi di cui fare il
+     *                            folding
+     * @param maxSpan
+     *                            la massima distanza {@code j - i} fra le
+     *                            posizioni di un legame
+     *
+     * @throws IllegalArgumentException
+     *                                      se la primarySequence contiene dei
+     *                                      codici di nucleotidi sconosciuti,
+     *                                      se maxSpan non è positivo o se la
+     *                                      banda di larghezza
+     *                                      {@code min(maxSpan, n - 1)} non
+     *                                      entra in memoria: i valori devono
+     *                                      stare in celle a 16 bit e le celle
+     *                                      in un unico array
+     * @throws NullPointerException
+     *                                      se la sequenza di nucleotidi è nulla
+     */
+    public LocalNussinovFolder(String primarySequence, int maxSpan) {
+        if (primarySequence == null)
+            throw new NullPointerException(
+                    "Tentativo di costruire un solutore Nussinov a partire da una sequenza nulla");
+        if (maxSpan <= 0)
+            throw new IllegalArgumentException(
+                    "La massima distanza dei legami deve essere positiva");
+        String seq = primarySequence.toUpperCase().trim();
+        // check bases in the primary structure - IUPAC nucleotide codes
+        this.codes = Nucleotides.encode(seq);
+        this.primarySequence = seq;
+        this.maxSpan = maxSpan;
+        // la banda effettiva si conosce già: meglio rifiutarla qui che al
+        // primo fold()
+        int span = Math.max(0, Math.min(maxSpan, seq.length() - 1));
+        if ((span + 1) / 2 > Character.MAX_VALUE)
+            throw new IllegalArgumentException("Banda troppo larga (" + span
+                    + ") per celle a 16 bit");
+        if (BandedTriangularMatrix.cellCount(seq.length(), span) > NussinovMatrix.MAX_ARRAY_LENGTH)
+            throw new IllegalArgumentException("Banda troppo larga (" + span
+                    + ") per una sequenza di " + seq.length() + " nucleotidi");
+        this.optimalSubstructure = null;
+    }
+
+    /**
+     * Restituisce la massima distanza fra le posizioni di un legame.
+     *
+     * @return la massima distanza {@code j - i} di un legame
+     */
+    public int getMaxSpan() {
+        return this.maxSpan;
+    }
+
+    @Override
+    public String getName() {
+        return "LocalNussinovFolder";
+    }
+
+    @Override
+    public String getSequence() {
+        return this.primarySequence;
+    }
+
+    @Override
+    public void fold() {
+        PairingPartners partners = fill();
+        int[] pairs = new int[16];
+        int found = 0;
+        int j = primarySequence.length() - 1;
+        while (j > 0) {
+            if (prefix[j + 1] == prefix[j]) {
+                j--;
+                continue;
+            }
+            // j è legato a un k nella banda
+            int[] candidates = partners.of(j);
+            int k = -1;
+            for (int c = partners.firstAtLeast(j, Math.max(0, j - maxSpan)); candidates[c] < j; c++)
+                if (prefix[j + 1] == prefix[candidates[c]]
+                        + nussinovJacobson.get(candidates[c] + 1, j - 1) + 1) {
+                    k = candidates[c];
+                    break;
+                }
+            int[] inner = NussinovFolder.traceback(nussinovJacobson, partners, k + 1, j - 1);
+            if (found + inner.length + 2 > pairs.length)
+                pairs = Arrays.copyOf(pairs, Math.max(2 * pairs.length, found + inner.length + 2));
+            pairs[found++] = k;
+            pairs[found++] = j;
+            System.arraycopy(inner, 0, pairs, found, inner.length);
+            found += inner.length;
+            j = k - 1;
+        }
+        optimalSubstructure = NussinovFolder.buildStructure(primarySequence,
+                Arrays.copyOf(pairs, found));
+    }
+
+    @Override
+    public int computeOptimalCardinality() {
+        fill();
+        return prefix[primarySequence.length()];
+    }
+
+    private PairingPartners fill() {
+        int n = primarySequence.length();
+        int span = Math.max(0, Math.min(maxSpan, n - 1));
+        // un intervallo della banda ha al più span + 1 nucleotidi
+        nussinovJacobson = new BandedTriangularMatrix(n, span, (span + 1) / 2);
+        prefix = new int[n + 1];
+        PairingPartners partners = new PairingPartners(codes);
+        for (int j = 0; j < n; j++) {
+            int[] candidates = partners.of(j);
+            int low = Math.max(0, j - span);
+            // colonna j della banda
+            nussinovJacobson.fillColumn(j, low, partners);
+            // legami più esterni che terminano in j
+            int best = prefix[j];
+            for (int c = partners.firstAtLeast(j, low); c < candidates.length
+                    && candidates[c] < j; c++) {
+                int k = candidates[c];
+                int val = prefix[k] + nussinovJacobson.get(k + 1, j - 1) + 1;
+                if (val > best)
+                    best = val;
+            }
+            prefix[j + 1] = best;
+        }
+        return partners;
+    }
+
+    @Override
+    public boolean isFolded() {
+        return optimalSubstructure != null;
+    }
+
+    @Override
+    public SecondaryStructure getOneOptimalStructure() {
+        if (!isFolded())
+            throw new IllegalStateException();
+        return optimalSubstructure;
+    }
+
+}
@@ -0,0 +1,90 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di Test per la classe LocalNussinovFolder
+ *
+ */
+class LocalNussinovFolderTest {
+
+    @Test
+    final void testGetOneOptimalStructure() {
+        LocalNussinovFolder folder = new LocalNussinovFolder("GCACGACG", 7);
+        assertThrows(IllegalStateException.class, () -> folder.getOneOptimalStructure());
+        folder.fold();
+        assertTrue(folder.isFolded());
+        assertEquals(3, folder.getOneOptimalStructure().getCardinality());
+        assertThrows(IllegalArgumentException.class, () -> new LocalNussinovFolder("GC", 0));
+        assertThrows(NullPointerException.class, () -> new LocalNussinovFolder(null, 3));
+    }
+
+    @Test
+    final void testSpanTooWide() {
+        char[] bases = new char[(1 << 17) + 2];
+        Arrays.fill(bases, 'A');
+        String sequence = new String(bases);
+        // la banda intera richiederebbe valori oltre 16 bit e troppe celle
+        assertThrows(IllegalArgumentException.class,
+                () -> new LocalNussinovFolder(sequence, Integer.MAX_VALUE));
+        assertEquals(100, new LocalNussinovFolder(sequence, 100).getMaxSpan());
+        assertEquals(7 * 4 + 3 + 2 + 1, BandedTriangularMatrix.cellCount(10, 3));
+        assertEquals(TriangularLayout.cellCount(10), BandedTriangularMatrix.cellCount(10, 50));
+    }
+
+    @Test
+    final void testLargeSpanMatchesNussinovFolder() {
+        Random random = new Random(70);
+        for (int length = 0; length < 200; length += 17) {
+            String sequence = RandomSequences.generate(random, length);
+            NussinovFolder nussinov = new NussinovFolder(sequence);
+            nussinov.fold();
+            LocalNussinovFolder local = new LocalNussinovFolder(sequence, Integer.MAX_VALUE);
+            local.fold();
+            assertEquals(nussinov.getOneOptimalStructure().getCardinality(),
+                    local.getOneOptimalStructure().getCardinality());
+        }
+    }
+
+    @Test
+    final void testBondsInsideSpan() {
+        Random random = new Random(71);
+        for (int span : new int[] { 1, 2, 5, 12, 40 })
+            for (int length = 0; length < 150; length += 29) {
+                String sequence = RandomSequences.generate(random, length);
+                LocalNussinovFolder local = new LocalNussinovFolder(sequence, span);
+                local.fold();
+                SecondaryStructure structure = local.getOneOptimalStructure();
+                assertFalse(structure.isPseudoknotted());
+                for (WeakBond bond : structure.getBonds())
+                    assertTrue(bond.getJ() - bond.getI() <= span);
+                assertEquals(bruteForce(sequence, span), structure.getCardinality());
+                assertEquals(structure.getCardinality(), local.computeOptimalCardinality());
+            }
+    }
+
+    /*
+     * Ricorrenza di Nussinov sull'intera matrice, ammettendo solo i legami
+     * entro la distanza massima.
+     */
+    private static int bruteForce(String sequence, int span) {
+        byte[] codes = Nucleotides.encode(sequence);
+        int n = codes.length;
+        int[][] d = new int[n + 1][n + 1];
+        for (int j = 0; j < n; j++)
+            for (int i = j - 1; i >= 0; i--) {
+                int max = d[i][j];
+                for (int k = Math.max(i, j - span); k < j; k++)
+                    if (Nucleotides.canPair(codes[k], codes[j]))
+                        max = Math.max(max, d[i][k] + d[k + 1][j] + 1);
+                d[i][j + 1] = Math.max(max, d[i][j]);
+            }
+        return n == 0 ? 0 : d[0][n];
+    }
+
+}
@@ -0,0 +1,136 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Matrice triangolare compatta memorizzata fuori dallo heap, in un file
+ * mappato in memoria. Le celle sono disposte come in una matrice compatta
+ * secondo una {@code TriangularLayout}, a 16 o 32 bit, e il file viene
+ * mappato in più segmenti da 1 GiB, dato che un singolo
+ * {@code MappedByteBuffer} non può superare i 2 GiB. La memoria della matrice
+ * non è soggetta al garbage collector ed è il sistema operativo a decidere
+ * quali pagine tenere in memoria e quali scaricare sul file.
+ *
+ */
+class MappedTriangularMatrix extends NussinovMatrix {
+
+    private static final int SEGMENT_SHIFT = 30;
+
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final MappedByteBuffer[] segments;
+
+    private final long[] starts;
+
+    private final boolean rowMajor;
+
+    private final boolean wide;
+
+    /**
+     * Crea la matrice in un nuovo file temporaneo con tutte le celle a 0.
+     *
+     * @param size
+     *                      la dimensione della matrice
+     * @param layout
+     *                      la disposizione delle celle nel file
+     * @param maxValue
+     *                      il massimo valore (non negativo) che verrà scritto
+     *                      nella matrice, che determina la dimensione delle
+     *                      celle
+     * @param directory
+     *                      la cartella in cui creare il file, oppure null per
+     *                      la cartella temporanea di sistema
+     *
+     * @throws UncheckedIOException
+     *                                  se il file non può essere creato o
+     *                                  mappato
+     */
+    MappedTriangularMatrix(int size, TriangularLayout layout, int maxValue,
+            File directory) {
+        super(size);
+        this.starts = layout.starts(size);
+        this.rowMajor = layout == TriangularLayout.ROW_MAJOR;
+        this.wide = maxValue > Character.MAX_VALUE;
+        long length = bytes(size, maxValue);
+        int count = (int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        this.segments = new MappedByteBuffer[count];
+        File file;
+        try {
+            file = File.createTempFile("nussinov", ".matrix", directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(
+                    "Impossibile creare il file della matrice", e);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // il file esteso è pieno di zeri
+            raf.setLength(length);
+            FileChannel channel = raf.getChannel();
+            for (int s = 0; s < count; s++) {
+                long position = (long) s << SEGMENT_SHIFT;
+                segments[s] = channel.map(FileChannel.MapMode.READ_WRITE,
+                        position, Math.min(SEGMENT_MASK + 1, length - position));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(
+                    "Impossibile mappare il file della matrice", e);
+        } finally {
+            // le mappature restano valide anche dopo la cancellazione del
+            // file, dove il sistema operativo lo consente; non si usa
+            // deleteOnExit, che terrebbe un riferimento a ogni file fino
+            // alla terminazione della JVM
+            file.delete();
+        }
+    }
+
+    /**
+     * Restituisce i byte del file per una matrice di dimensione data.
+     *
+     * @param size
+     *                     la dimensione della matrice
+     * @param maxValue
+     *                     il massimo valore che verrà scritto nella matrice
+     * @return la dimensione del file in byte
+     */
+    static long bytes(int size, int maxValue) {
+        return TriangularLayout.cellCount(size)
+                * (maxValue > Character.MAX_VALUE ? Integer.BYTES : Character.BYTES);
+    }
+
+    @Override
+    int get(int i, int j) {
+        if (j < i)
+            return 0;
+        long offset = offset(i, j);
+        MappedByteBuffer segment = segments[(int) (offset >>> SEGMENT_SHIFT)];
+        int position = (int) (offset & SEGMENT_MASK);
+        return wide ? segment.getInt(position) : segment.getChar(position);
+    }
+
+    @Override
+    void set(int i, int j, int value) {
+        long offset = offset(i, j);
+        MappedByteBuffer segment = segments[(int) (offset >>> SEGMENT_SHIFT)];
+        int position = (int) (offset & SEGMENT_MASK);
+        if (wide)
+            segment.putInt(position, value);
+        else
+            segment.putChar(position, (char) value);
+    }
+
+    /*
+     * Posizione in byte della cella (i, j); le celle non attraversano mai il
+     * confine fra due segmenti perché la loro dimensione divide 1 GiB.
+     */
+    private long offset(int i, int j) {
+        long index = rowMajor ? starts[i] + (j - i) : starts[j - i] + i;
+        return wide ? index << 2 : index << 1;
+    }
+
+}
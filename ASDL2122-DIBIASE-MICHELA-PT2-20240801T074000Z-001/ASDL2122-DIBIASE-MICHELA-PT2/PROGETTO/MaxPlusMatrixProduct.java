@@ -0,0 +1,176 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Prodotto di matrici nel semianello (max, +):
+ * {@code C[i][j] = max_t (A[i][t] + B[t][j])}. Le matrici sono array di
+ * {@code int} memorizzati per righe in un unico array.
+ *
+ * Il calcolo procede per blocchi di indici t e di colonne, in modo che le
+ * righe di B e di C usate da un blocco restino in cache, e il ciclo più
+ * interno scorre una riga di B e una di C con accessi contigui e senza salti,
+ * così che il compilatore JIT possa vettorizzarlo. La versione parallela
+ * divide le righe di C fra i thread del {@code ForkJoinPool} comune.
+ *
+ */
+public final class MaxPlusMatrixProduct {
+
+    /**
+     * Elemento neutro del massimo nel semianello, cioè "meno infinito": la
+     * somma di due elementi neutri non va in overflow. Gli elementi finiti
+     * devono avere valore assoluto minore di
+     * {@code -NEGATIVE_INFINITY / 2}; ogni risultato minore o uguale a
+     * {@code NEGATIVE_INFINITY / 2} va interpretato come meno infinito.
+     */
+    public static final int NEGATIVE_INFINITY = Integer.MIN_VALUE / 2;
+
+    private static final int INNER_BLOCK = 64;
+
+    private static final int COLUMN_BLOCK = 1024;
+
+    /*
+     * Righe di C assegnate a ciascun task della versione parallela.
+     */
+    private static final int ROWS_PER_TASK = 16;
+
+    private MaxPlusMatrixProduct() {
+    }
+
+    /**
+     * Calcola il prodotto (max, +) di due matrici.
+     *
+     * @param a
+     *                     la matrice {@code rows x inner}, per righe
+     * @param b
+     *                     la matrice {@code inner x columns}, per righe
+     * @param rows
+     *                     il numero di righe di A e di C
+     * @param inner
+     *                     il numero di colonne di A e di righe di B
+     * @param columns
+     *                     il numero di colonne di B e di C
+     * @param parallel
+     *                     se true le righe di C sono calcolate in parallelo
+     * @return la matrice {@code rows x columns} del prodotto, per righe
+     *
+     * @throws IllegalArgumentException
+     *                                      se le dimensioni sono negative o
+     *                                      non corrispondono a quelle degli
+     *                                      array
+     */
+    public static int[] multiply(int[] a, int[] b, int rows, int inner,
+            int columns, boolean parallel) {
+        if (rows < 0 || inner < 0 || columns < 0)
+            throw new IllegalArgumentException("Dimensioni negative");
+        if ((long) rows * columns > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Matrice del prodotto troppo grande");
+        int[] c = new int[rows * columns];
+        Arrays.fill(c, NEGATIVE_INFINITY);
+        if (parallel)
+            multiplyAccumulateParallel(a, b, c, rows, inner, columns);
+        else
+            multiplyAccumulate(a, b, c, rows, inner, columns);
+        return c;
+    }
+
+    /**
+     * Aggiorna C con il massimo fra il suo valore e il prodotto (max, +) di A
+     * e B: {@code C[i][j] = max(C[i][j], max_t (A[i][t] + B[t][j]))}. Gli
+     * elementi di A uguali a {@code NEGATIVE_INFINITY} vengono saltati.
+     *
+     * @param a
+     *                    la matrice {@code rows x inner}, per righe
+     * @param b
+     *                    la matrice {@code inner x columns}, per righe
+     * @param c
+     *                    la matrice {@code rows x columns} da aggiornare, per
+     *                    righe
+     * @param rows
+     *                    il numero di righe di A e di C
+     * @param inner
+     *                    il numero di colonne di A e di righe di B
+     * @param columns
+     *                    il numero di colonne di B e di C
+     *
+     * @throws IllegalArgumentException
+     *                                      se le dimensioni sono negative o
+     *                                      non corrispondono a quelle degli
+     *                                      array
+     */
+    public static void multiplyAccumulate(int[] a, int[] b, int[] c, int rows,
+            int inner, int columns) {
+        check(a, b, c, rows, inner, columns);
+        multiplyRows(a, b, c, 0, rows, inner, columns);
+    }
+
+    /**
+     * Come {@code multiplyAccumulate}, ma divide le righe di C fra i thread
+     * del {@code ForkJoinPool} comune.
+     *
+     * @param a
+     *                    la matrice {@code rows x inner}, per righe
+     * @param b
+     *                    la matrice {@code inner x columns}, per righe
+     * @param c
+     *                    la matrice {@code rows x columns} da aggiornare, per
+     *                    righe
+     * @param rows
+     *                    il numero di righe di A e di C
+     * @param inner
+     *                    il numero di colonne di A e di righe di B
+     * @param columns
+     *                    il numero di colonne di B e di C
+     *
+     * @throws IllegalArgumentException
+     *                                      se le dimensioni sono negative o
+     *                                      non corrispondono a quelle degli
+     *                                      array
+     */
+    public static void multiplyAccumulateParallel(int[] a, int[] b, int[] c,
+            int rows, int inner, int columns) {
+        check(a, b, c, rows, inner, columns);
+        int tasks = (rows + ROWS_PER_TASK - 1) / ROWS_PER_TASK;
+        IntStream.range(0, tasks).parallel().forEach(t -> multiplyRows(a, b, c,
+                t * ROWS_PER_TASK, Math.min(rows, (t + 1) * ROWS_PER_TASK), inner, columns));
+    }
+
+    private static void check(int[] a, int[] b, int[] c, int rows, int inner,
+            int columns) {
+        if (rows < 0 || inner < 0 || columns < 0)
+            throw new IllegalArgumentException("Dimensioni negative");
+        if (a.length != (long) rows * inner || b.length != (long) inner * columns
+                || c.length != (long) rows * columns)
+            throw new IllegalArgumentException(
+                    "Le dimensioni non corrispondono a quelle delle matrici");
+    }
+
+    /*
+     * Righe da firstRow (incluso) a lastRow (escluso), per blocchi di indici
+     * t e di colonne.
+     */
+    private static void multiplyRows(int[] a, int[] b, int[] c, int firstRow,
+            int lastRow, int inner, int columns) {
+        for (int t0 = 0; t0 < inner; t0 += INNER_BLOCK) {
+            int t1 = Math.min(inner, t0 + INNER_BLOCK);
+            for (int c0 = 0; c0 < columns; c0 += COLUMN_BLOCK) {
+                int c1 = Math.min(columns, c0 + COLUMN_BLOCK);
+                for (int i = firstRow; i < lastRow; i++) {
+                    int cRow = i * columns;
+                    for (int t = t0; t < t1; t++) {
+                        int value = a[i * inner + t];
+                        if (value == NEGATIVE_INFINITY)
+                            continue;
+                        int bRow = t * columns;
+                        for (int j = c0; j < c1; j++)
+                            c[cRow + j] = Math.max(c[cRow + j], value + b[bRow + j]);
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di Test per la classe MaxPlusMatrixProduct
+ *
+ */
+class MaxPlusMatrixProductTest {
+
+    private static final int NEG = MaxPlusMatrixProduct.NEGATIVE_INFINITY;
+
+    @Test
+    final void testMultiply() {
+        int[] a = { 1, NEG, 0, 2 };
+        int[] b = { 3, 0, NEG, 5 };
+        // riga 0: max(1 + 3, NEG), max(1 + 0, NEG + 5)
+        // riga 1: max(0 + 3, 2 + NEG), max(0 + 0, 2 + 5)
+        assertArrayEquals(new int[] { 4, 1, 3, 7 },
+                MaxPlusMatrixProduct.multiply(a, b, 2, 2, 2, false));
+        assertArrayEquals(new int[] { 4, 1, 3, 7 },
+                MaxPlusMatrixProduct.multiply(a, b, 2, 2, 2, true));
+    }
+
+    @Test
+    final void testMultiplyAccumulateAgainstNaive() {
+        Random random = new Random(41);
+        int[][] shapes = { { 1, 1, 1 }, { 4, 1, 4 }, { 3, 70, 5 }, { 50, 130, 1100 }, { 33, 0, 4 } };
+        for (int[] shape : shapes) {
+            int rows = shape[0], inner = shape[1], columns = shape[2];
+            int[] a = randomMatrix(random, rows * inner);
+            int[] b = randomMatrix(random, inner * columns);
+            int[] c = randomMatrix(random, rows * columns);
+            int[] expected = c.clone();
+            for (int i = 0; i < rows; i++)
+                for (int t = 0; t < inner; t++)
+                    for (int j = 0; j < columns; j++)
+                        if (a[i * inner + t] != NEG && b[t * columns + j] != NEG)
+                            expected[i * columns + j] = Math.max(expected[i * columns + j],
+                                    a[i * inner + t] + b[t * columns + j]);
+            int[] sequential = c.clone();
+            MaxPlusMatrixProduct.multiplyAccumulate(a, b, sequential, rows, inner, columns);
+            assertArrayEquals(expected, normalize(sequential));
+            int[] parallel = c.clone();
+            MaxPlusMatrixProduct.multiplyAccumulateParallel(a, b, parallel, rows, inner, columns);
+            assertArrayEquals(expected, normalize(parallel));
+        }
+    }
+
+    @Test
+    final void testWrongDimensions() {
+        assertThrows(IllegalArgumentException.class,
+                () -> MaxPlusMatrixProduct.multiply(new int[4], new int[4], 2, 2, 3, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> MaxPlusMatrixProduct.multiplyAccumulate(new int[4], new int[4],
+                        new int[4], -2, -2, -2));
+        assertThrows(IllegalArgumentException.class,
+                () -> MaxPlusMatrixProduct.multiply(new int[0], new int[0], -1, 0, 1, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> MaxPlusMatrixProduct.multiply(new int[0], new int[0],
+                        1 << 16, 0, 1 << 16, false));
+    }
+
+    /*
+     * Riporta a NEG i valori che rappresentano meno infinito.
+     */
+    private static int[] normalize(int[] m) {
+        for (int k = 0; k < m.length; k++)
+            if (m[k] <= NEG / 2)
+                m[k] = NEG;
+        return m;
+    }
+
+    private static int[] randomMatrix(Random random, int length) {
+        int[] m = new int[length];
+        for (int k = 0; k < length; k++)
+            m[k] = random.nextInt(10) == 0 ? NEG : random.nextInt(1000);
+        return m;
+    }
+
+}
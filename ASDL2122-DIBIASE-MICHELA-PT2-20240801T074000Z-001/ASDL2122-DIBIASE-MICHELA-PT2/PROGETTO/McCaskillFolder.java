@@ -0,0 +1,350 @@
+package it.unicam.cs.asdl2122.pt2;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Algoritmo di McCaskill per il modello a legami di Nussinov-Jacobson: invece
+ * di cercare una struttura con il massimo numero di legami, considera tutte le
+ * strutture secondarie senza pseudonodi della sequenza (con le coppie GC, AU e
+ * GU), ciascuna con peso {@code exp(beta * legami)}, e calcola per ogni coppia
+ * di posizioni la probabilità che siano legate.
+ *
+ * La funzione di partizione interna {@code Z(i, j)} usa la stessa ricorrenza
+ * della matrice di Nussinov-Jacobson, con somme e prodotti al posto di massimi
+ * e somme; la funzione esterna {@code Zout(i, j)} somma i pesi di tutto ciò
+ * che sta fuori dall'intervallo. Entrambe sono riempite per anti-diagonali,
+ * in parallelo sul {@code ForkJoinPool} comune: quella interna dalla diagonale
+ * più corta, quella esterna dalla più lunga. Per evitare overflow il peso di un
+ * intervallo di lunghezza l è diviso per {@code scale^l}, con il fattore scelto
+ * stimando la crescita di Z su un prefisso della sequenza e corretto se la
+ * stima non basta.
+ *
+ * La struttura restituita da {@code getOneOptimalStructure()} è la struttura
+ * centroide: i legami con probabilità maggiore di 1/2, che non si incrociano
+ * mai e non condividono posizioni.
+ *
+ */
+public class McCaskillFolder implements FoldingAlgorithm {
+
+    /**
+     * Valore di default di beta: ogni legame moltiplica il peso per e.
+     */
+    public static final double DEFAULT_BETA = 1.0;
+
+    /*
+     * Lunghezza del prefisso usato per stimare il fattore di scala.
+     */
+    private static final int SCALE_PREFIX = 64;
+
+    private static final int MAX_RESCALINGS = 20;
+
+    private final String primarySequence;
+
+    private final byte[] codes;
+
+    private final double beta;
+
+    private final double pairWeight;
+
+    private long parallelThreshold;
+
+    private SecondaryStructure centroid;
+
+    private PairingPartners partners;
+
+    private PackedDoubleTriangularMatrix inside;
+
+    private PackedDoubleTriangularMatrix outside;
+
+    /*
+     * Peso esterno di ogni coppia che può legarsi: la somma, per h <= k, di
+     * Zout(h, m) * Z(h, k - 1)
+     */
+    private PackedDoubleTriangularMatrix pairOutside;
+
+    private double scale;
+
+    /*
+     * pairWeight / scale^2, il peso di un legame con i suoi due nucleotidi
+     */
+    private double scaledPairWeight;
+
+    /**
+     * Costruisce un solver che utilizza l'algoritmo di McCaskill con beta
+     * uguale a {@code DEFAULT_BETA}.
+     *
+     * @param primarySequence
+     *                            la sequenza di nucleotidi di cui fare il
+     *                            folding
+     *
+     * @throws IllegalArgumentException
+     *                                      se la primarySequence contiene dei
+     *                                      codici di nucleotidi sconosciuti
+     * @throws NullPointerException
+     *                                      se la sequenza di nucleotidi è nulla
+     */
+    public McCaskillFolder(String primarySequence) {
+        this(primarySequence, DEFAULT_BETA);
+    }
+
+    /**
+     * Costruisce un solver che utilizza l'algoritmo di McCaskill.
+     *
+     * @param primarySequence
+     *                            la sequenza di nucleotidi di cui fare il
+     *                            folding
+     * @param beta
+     *                            il logaritmo del fattore di peso di ogni
+     *                            legame: con beta grande le probabilità si
+     *                            concentrano sulle strutture con più legami,
+     *                            con beta nullo tutte le strutture sono
+     *                            equiprobabili
+     *
+     * @throws IllegalArgumentException
+     *                                      se la primarySequence contiene dei
+     *                                      codici di nucleotidi sconosciuti o
+     *                                      se beta è negativo o non è finito
+     * @throws NullPointerException
+     *                                      se la sequenza di nucleotidi è nulla
+     */
+    public McCaskillFolder(String primarySequence, double beta) {
+        if (primarySequence == null)
+            throw new NullPointerException(
+                    "Tentativo di costruire un solutore McCaskill a partire da una sequenza nulla");
+        if (!(beta >= 0) || Double.isInfinite(beta))
+            throw new IllegalArgumentException("Beta non valido: " + beta);
+        String seq = primarySequence.toUpperCase().trim();
+        // check bases in the primary structure - IUPAC nucleotide codes
+        this.codes = Nucleotides.encode(seq);
+        this.primarySequence = seq;
+        this.beta = beta;
+        this.pairWeight = Math.exp(beta);
+        this.parallelThreshold = AntiDiagonalWavefront.DEFAULT_THRESHOLD;
+        this.centroid = null;
+    }
+
+    /**
+     * Imposta la soglia di lavoro (celle di un segmento di diagonale per
+     * lunghezza della diagonale) sotto la quale i riempimenti calcolano un
+     * segmento sequenzialmente.
+     *
+     * @param parallelThreshold
+     *                              la nuova soglia
+     *
+     * @throws IllegalArgumentException
+     *                                      se la soglia non è positiva
+     */
+    public void setParallelThreshold(long parallelThreshold) {
+        if (parallelThreshold <= 0)
+            throw new IllegalArgumentException(
+                    "La soglia di parallelismo deve essere positiva");
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Restituisce il logaritmo del fattore di peso di ogni legame.
+     *
+     * @return beta
+     */
+    public double getBeta() {
+        return this.beta;
+    }
+
+    @Override
+    public String getName() {
+        return "McCaskillFolder";
+    }
+
+    @Override
+    public String getSequence() {
+        return this.primarySequence;
+    }
+
+    @Override
+    public void fold() {
+        int n = primarySequence.length();
+        partners = new PairingPartners(codes);
+        fillInside();
+        outside = new PackedDoubleTriangularMatrix(n, TriangularLayout.ROW_MAJOR);
+        pairOutside = new PackedDoubleTriangularMatrix(n, TriangularLayout.ROW_MAJOR);
+        if (n > 0)
+            outside.set(0, n - 1, 1);
+        // le coppie e gli intervalli più lunghi vengono prima: Zout(i, j)
+        // dipende solo da intervalli che contengono [i, j]
+        AntiDiagonalWavefront.run(n, 1, true, true, parallelThreshold,
+                this::fillOutsideDiagonal);
+        centroid = new SecondaryStructure(primarySequence);
+        for (int k = 0; k < n; k++)
+            for (int m = k + 1; m < n; m++)
+                if (probability(k, m) > 0.5)
+                    centroid.addBond(new WeakBond(k + 1, m + 1));
+    }
+
+    /*
+     * Riempie Z con il fattore di scala stimato sul prefisso e, se qualche
+     * valore esce dall'intervallo dei double, ricomincia correggendo il
+     * fattore con la crescita osservata sull'ultima diagonale ancora valida.
+     */
+    private void fillInside() {
+        int n = primarySequence.length();
+        scale = estimateScale();
+        for (int attempt = 0;; attempt++) {
+            scaledPairWeight = pairWeight / (scale * scale);
+            inside = new PackedDoubleTriangularMatrix(n, TriangularLayout.ROW_MAJOR);
+            AntiDiagonalWavefront.run(n, 0, false, true, parallelThreshold,
+                    this::fillInsideDiagonal);
+            int d = n - 1;
+            while (d >= 0 && !isRepresentable(inside.get(0, d)))
+                d--;
+            if (d == n - 1 || attempt == MAX_RESCALINGS)
+                break;
+            scale *= Math.pow(inside.get(0, d), 1.0 / (d + 1));
+        }
+        if (n > 0 && !isRepresentable(inside.get(0, n - 1)))
+            throw new ArithmeticException(
+                    "Funzione di partizione fuori dall'intervallo dei double");
+    }
+
+    /*
+     * Fattore di crescita per nucleotide di Z sul prefisso della sequenza,
+     * calcolato senza scala.
+     */
+    private double estimateScale() {
+        int length = Math.min(primarySequence.length(), SCALE_PREFIX);
+        if (length == 0)
+            return 1;
+        scale = 1;
+        scaledPairWeight = pairWeight;
+        inside = new PackedDoubleTriangularMatrix(length, TriangularLayout.ROW_MAJOR);
+        AntiDiagonalWavefront.run(length, 0, false, false, parallelThreshold,
+                this::fillInsideDiagonal);
+        double z = inside.get(0, length - 1);
+        if (!isRepresentable(z))
+            return Math.exp(beta / 2 + 1);
+        return Math.max(Double.MIN_NORMAL, Math.pow(z, 1.0 / length));
+    }
+
+    private static boolean isRepresentable(double value) {
+        return value >= Double.MIN_NORMAL && value < Double.POSITIVE_INFINITY;
+    }
+
+    private void fillInsideDiagonal(int d, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int j = i + d;
+            // j non legato
+            double z = z(i, j - 1) / scale;
+            // j legato a k
+            int[] candidates = partners.of(j);
+            for (int c = partners.firstAtLeast(j, i); c < candidates.length
+                    && candidates[c] < j; c++) {
+                int k = candidates[c];
+                z += z(i, k - 1) * z(k + 1, j - 1) * scaledPairWeight;
+            }
+            inside.set(i, j, z);
+        }
+    }
+
+    private void fillOutsideDiagonal(int d, int from, int to) {
+        int n = primarySequence.length();
+        for (int i = from; i < to; i++) {
+            int j = i + d;
+            if (j + 1 < n) {
+                // [i, j] seguito da j + 1 non legato
+                double o = outside.get(i, j + 1) / scale;
+                // [i, j] seguito da un legame (j + 1, m)
+                int[] candidates = partners.of(j + 1);
+                for (int c = partners.firstAtLeast(j + 1, j + 2); c < candidates.length; c++) {
+                    int m = candidates[c];
+                    o += outside.get(i, m) * z(j + 2, m - 1) * scaledPairWeight;
+                }
+                // [i, j] racchiuso dal legame (i - 1, j + 1)
+                if (i > 0 && Nucleotides.canPair(codes[i - 1], codes[j + 1]))
+                    o += pairOutside.get(i - 1, j + 1) * scaledPairWeight;
+                outside.set(i, j, o);
+            }
+            if (Nucleotides.canPair(codes[i], codes[j])) {
+                double q = 0;
+                for (int h = 0; h <= i; h++)
+                    q += outside.get(h, j) * z(h, i - 1);
+                pairOutside.set(i, j, q);
+            }
+        }
+    }
+
+    /*
+     * Z(i, j) scalato, 1 per gli intervalli vuoti.
+     */
+    private double z(int i, int j) {
+        return j < i ? 1 : inside.get(i, j);
+    }
+
+    private double probability(int k, int m) {
+        if (!Nucleotides.canPair(codes[k], codes[m]))
+            return 0;
+        return pairOutside.get(k, m) * z(k + 1, m - 1) * scaledPairWeight
+                / inside.get(0, primarySequence.length() - 1);
+    }
+
+    /**
+     * Restituisce la probabilità, nell'insieme di tutte le strutture della
+     * sequenza, che i nucleotidi nelle posizioni i e j siano legati.
+     *
+     * @param i
+     *              la prima posizione, a partire da 1
+     * @param j
+     *              la seconda posizione, a partire da 1
+     * @return la probabilità del legame, 0 se i due nucleotidi non possono
+     *         legarsi
+     *
+     * @throws IllegalStateException
+     *                                      se il folding non è ancora stato
+     *                                      eseguito
+     * @throws IllegalArgumentException
+     *                                      se le posizioni sono fuori dalla
+     *                                      sequenza o uguali
+     */
+    public double getPairProbability(int i, int j) {
+        if (!isFolded())
+            throw new IllegalStateException();
+        if (i < 1 || j < 1 || i > primarySequence.length()
+                || j > primarySequence.length() || i == j)
+            throw new IllegalArgumentException("Coppia di posizioni non valida: ("
+                    + i + ", " + j + ")");
+        return probability(Math.min(i, j) - 1, Math.max(i, j) - 1);
+    }
+
+    /**
+     * Restituisce il logaritmo naturale della funzione di partizione, la somma
+     * dei pesi {@code exp(beta * legami)} di tutte le strutture della
+     * sequenza.
+     *
+     * @return il logaritmo della funzione di partizione
+     *
+     * @throws IllegalStateException
+     *                                   se il folding non è ancora stato
+     *                                   eseguito
+     */
+    public double getLogPartitionFunction() {
+        if (!isFolded())
+            throw new IllegalStateException();
+        int n = primarySequence.length();
+        return n == 0 ? 0 : Math.log(inside.get(0, n - 1)) + n * Math.log(scale);
+    }
+
+    @Override
+    public boolean isFolded() {
+        return centroid != null;
+    }
+
+    /**
+     * Restituisce la struttura centroide: i legami con probabilità maggiore
+     * di 1/2.
+     */
+    @Override
+    public SecondaryStructure getOneOptimalStructure() {
+        if (!isFolded())
+            throw new IllegalStateException();
+        return centroid;
+    }
+
+}
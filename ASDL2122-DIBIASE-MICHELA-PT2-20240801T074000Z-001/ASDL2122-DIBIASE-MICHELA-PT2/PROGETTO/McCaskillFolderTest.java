@@ -0,0 +1,84 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di Test per la classe McCaskillFolder
+ *
+ */
+class McCaskillFolderTest {
+
+    @Test
+    final void testProbabilitiesMatchEnumeration() {
+        Random random = new Random(140);
+        for (double beta : new double[] { 0, 1, 3 })
+            for (int length : new int[] { 0, 1, 2, 7, 12 }) {
+                String sequence = RandomSequences.generate(random, length);
+                // tutte le strutture della sequenza
+                NussinovFolder nussinov = new NussinovFolder(sequence);
+                nussinov.fold();
+                List<SecondaryStructure> structures = nussinov
+                        .suboptimalStructures(length).collect(Collectors.toList());
+                double z = 0;
+                double[][] expected = new double[length + 1][length + 1];
+                for (SecondaryStructure structure : structures) {
+                    double weight = Math.exp(beta * structure.getCardinality());
+                    z += weight;
+                    for (WeakBond bond : structure.getBonds())
+                        expected[bond.getI()][bond.getJ()] += weight;
+                }
+                McCaskillFolder folder = new McCaskillFolder(sequence, beta);
+                folder.setParallelThreshold(1);
+                folder.fold();
+                assertEquals(Math.log(z), folder.getLogPartitionFunction(), 1e-9);
+                for (int i = 1; i <= length; i++)
+                    for (int j = i + 1; j <= length; j++) {
+                        assertEquals(expected[i][j] / z, folder.getPairProbability(i, j), 1e-9);
+                        assertEquals(folder.getPairProbability(i, j),
+                                folder.getPairProbability(j, i));
+                    }
+            }
+    }
+
+    @Test
+    final void testLongSequence() {
+        Random random = new Random(141);
+        String sequence = RandomSequences.generate(random, 1200);
+        McCaskillFolder folder = new McCaskillFolder(sequence, 2);
+        folder.fold();
+        assertTrue(Double.isFinite(folder.getLogPartitionFunction()));
+        for (int i = 1; i <= sequence.length(); i += 37) {
+            double paired = 0;
+            for (int j = 1; j <= sequence.length(); j++)
+                if (j != i) {
+                    double p = folder.getPairProbability(i, j);
+                    assertTrue(p >= 0 && p <= 1 + 1e-9);
+                    paired += p;
+                }
+            assertTrue(paired <= 1 + 1e-9);
+        }
+        SecondaryStructure centroid = folder.getOneOptimalStructure();
+        assertFalse(centroid.isPseudoknotted());
+        for (WeakBond bond : centroid.getBonds())
+            assertTrue(folder.getPairProbability(bond.getI(), bond.getJ()) > 0.5);
+    }
+
+    @Test
+    final void testInvalidArguments() {
+        assertThrows(NullPointerException.class, () -> new McCaskillFolder(null));
+        assertThrows(IllegalArgumentException.class, () -> new McCaskillFolder("GC", -1));
+        McCaskillFolder folder = new McCaskillFolder("GCACGACG");
+        assertThrows(IllegalStateException.class, () -> folder.getPairProbability(1, 2));
+        folder.fold();
+        assertThrows(IllegalArgumentException.class, () -> folder.getPairProbability(0, 2));
+        assertThrows(IllegalArgumentException.class, () -> folder.getPairProbability(3, 3));
+        assertEquals(0.0, folder.getPairProbability(1, 3));
+    }
+
+}
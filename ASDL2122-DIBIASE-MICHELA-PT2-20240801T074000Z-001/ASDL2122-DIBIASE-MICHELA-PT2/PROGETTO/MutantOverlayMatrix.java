@@ -0,0 +1,68 @@
+package it.unicam.cs.asdl2122.pt2;
+
+/**
+ * Vista della matrice di Nussinov-Jacobson di una sequenza in cui è stato
+ * sostituito il nucleotide in posizione p. Le celle {@code (i, j)} con
+ * {@code i <= p <= j} riguardano intervalli che contengono la mutazione e sono
+ * memorizzate in un array di lavoro di {@code (p + 1) * (n - p)} celle; tutte
+ * le altre sono lette, senza modificarla, dalla matrice della sequenza
+ * originale, che può quindi essere condivisa da più viste in parallelo.
+ *
+ */
+class MutantOverlayMatrix extends NussinovMatrix {
+
+    private final NussinovMatrix base;
+
+    private final int position;
+
+    private final int width;
+
+    private final int[] scratch;
+
+    /**
+     * Crea la vista per una mutazione.
+     *
+     * @param base
+     *                     la matrice della sequenza originale
+     * @param position
+     *                     la posizione della mutazione, a partire da 0
+     * @param scratch
+     *                     l'array di lavoro, di almeno
+     *                     {@code cells(base.size(), position)} elementi
+     */
+    MutantOverlayMatrix(NussinovMatrix base, int position, int[] scratch) {
+        super(base.size());
+        this.base = base;
+        this.position = position;
+        this.width = base.size() - position;
+        this.scratch = scratch;
+    }
+
+    /**
+     * Restituisce il numero di celle che dipendono dalla posizione mutata.
+     *
+     * @param size
+     *                     la dimensione della matrice
+     * @param position
+     *                     la posizione della mutazione
+     * @return le celle da ricalcolare
+     */
+    static long cells(int size, int position) {
+        return (long) (position + 1) * (size - position);
+    }
+
+    @Override
+    int get(int i, int j) {
+        if (j < i)
+            return 0;
+        if (i <= position && position <= j)
+            return scratch[(position - i) * width + (j - position)];
+        return base.get(i, j);
+    }
+
+    @Override
+    void set(int i, int j, int value) {
+        scratch[(position - i) * width + (j - position)] = value;
+    }
+
+}
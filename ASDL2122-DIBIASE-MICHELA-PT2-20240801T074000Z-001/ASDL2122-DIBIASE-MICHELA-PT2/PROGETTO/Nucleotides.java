@@ -0,0 +1,111 @@
+package it.unicam.cs.asdl2122.pt2;
+
+/**
+ * Codifica dei nucleotidi di una sequenza di RNA come interi da 0 a 3. La
+ * sequenza viene codificata una sola volta in un array di {@code byte}; da
+ * quel momento decidere se due posizioni possono legarsi è un accesso alla
+ * tabella di 16 elementi di un {@code PairingScheme}, senza confronti fra
+ * caratteri.
+ *
+ */
+public final class Nucleotides {
+
+    /**
+     * Codice dell'adenina.
+     */
+    public static final byte A = 0;
+
+    /**
+     * Codice della citosina.
+     */
+    public static final byte C = 1;
+
+    /**
+     * Codice della guanina.
+     */
+    public static final byte G = 2;
+
+    /**
+     * Codice dell'uracile.
+     */
+    public static final byte U = 3;
+
+    /**
+     * Numero di nucleotidi distinti.
+     */
+    public static final int COUNT = 4;
+
+    private static final String BASES = "ACGU";
+
+    private Nucleotides() {
+    }
+
+    /**
+     * Codifica una sequenza di nucleotidi, già convertita in maiuscolo.
+     *
+     * @param primarySequence
+     *                            la sequenza di nucleotidi
+     * @return l'array dei codici dei nucleotidi della sequenza
+     *
+     * @throws IllegalArgumentException
+     *                                      se la sequenza contiene dei codici
+     *                                      di nucleotidi sconosciuti
+     */
+    public static byte[] encode(String primarySequence) {
+        byte[] codes = new byte[primarySequence.length()];
+        // check bases in the primary structure - IUPAC nucleotide codes
+        for (int i = 0; i < codes.length; i++) {
+            int code = BASES.indexOf(primarySequence.charAt(i));
+            if (code < 0)
+                throw new IllegalArgumentException(
+                        "INPUT ERROR: primary structure contains an unkwnown nucleotide code at position "
+                                + (i + 1));
+            codes[i] = (byte) code;
+        }
+        return codes;
+    }
+
+    /**
+     * Restituisce il codice di un nucleotide.
+     *
+     * @param base
+     *                 il nucleotide, in maiuscolo
+     * @return il codice del nucleotide
+     *
+     * @throws IllegalArgumentException
+     *                                      se il nucleotide è sconosciuto
+     */
+    public static byte code(char base) {
+        int code = BASES.indexOf(base);
+        if (code < 0)
+            throw new IllegalArgumentException(
+                    "INPUT ERROR: unkwnown nucleotide code " + base);
+        return (byte) code;
+    }
+
+    /**
+     * Restituisce il nucleotide di un codice.
+     *
+     * @param code
+     *                 il codice, fra 0 e 3
+     * @return il nucleotide corrispondente
+     */
+    public static char base(byte code) {
+        return BASES.charAt(code);
+    }
+
+    /**
+     * Determina se due nucleotidi possono formare un legame debole secondo lo
+     * schema {@code PairingScheme.WOBBLE}.
+     *
+     * @param x
+     *              il codice del primo nucleotide
+     * @param y
+     *              il codice del secondo nucleotide
+     * @return true se la coppia è GC, AU o GU (in qualsiasi ordine)
+     */
+    public static boolean canPair(byte x, byte y) {
+        return PairingScheme.WOBBLE.canPair(x, y);
+    }
+
+}
@@ -0,0 +1,39 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di Test per la classe Nucleotides
+ *
+ */
+class NucleotidesTest {
+
+    @Test
+    final void testEncode() {
+        byte[] codes = Nucleotides.encode("ACGU");
+        assertEquals(Nucleotides.A, codes[0]);
+        assertEquals(Nucleotides.C, codes[1]);
+        assertEquals(Nucleotides.G, codes[2]);
+        assertEquals(Nucleotides.U, codes[3]);
+        assertEquals('G', Nucleotides.base(Nucleotides.code('G')));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Nucleotides.encode("ACGT"));
+        assertTrue(e.getMessage().endsWith("position 4"));
+    }
+
+    @Test
+    final void testCanPair() {
+        String bases = "ACGU";
+        for (int x = 0; x < bases.length(); x++)
+            for (int y = 0; y < bases.length(); y++) {
+                String pair = "" + bases.charAt(x) + bases.charAt(y);
+                boolean expected = pair.equals("GC") || pair.equals("CG")
+                        || pair.equals("AU") || pair.equals("UA")
+                        || pair.equals("GU") || pair.equals("UG");
+                assertEquals(expected, Nucleotides.canPair((byte) x, (byte) y), pair);
+            }
+    }
+
+}
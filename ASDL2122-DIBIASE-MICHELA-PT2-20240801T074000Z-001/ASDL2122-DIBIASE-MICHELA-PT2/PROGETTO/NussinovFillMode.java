@@ -0,0 +1,36 @@
+package it.unicam.cs.asdl2122.pt2;
+
+/**
+ * Modalità con cui un {@code NussinovFolder} riempie la propria matrice di
+ * programmazione dinamica. Tutte le modalità producono la stessa matrice e
+ * quindi la stessa struttura secondaria ottima.
+ *
+ */
+public enum NussinovFillMode {
+
+    /**
+     * Riempimento sequenziale, una anti-diagonale alla volta.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Riempimento a fronte d'onda: ogni anti-diagonale viene suddivisa in
+     * segmenti calcolati in parallelo su un {@code ForkJoinPool}, dato che le
+     * celle di una stessa diagonale dipendono solo da diagonali precedenti.
+     */
+    PARALLEL_WAVEFRONT,
+
+    /**
+     * Riempimento a blocchi: la matrice è divisa in blocchi quadrati che
+     * vengono calcolati in ordine di dipendenza, una diagonale di blocchi alla
+     * volta. I blocchi di una stessa diagonale sono indipendenti e vengono
+     * calcolati in parallelo come task separati. In un blocco fuori dalla
+     * diagonale i punti di divisione che cadono in altri blocchi sono
+     * consumati con prodotti (max, +) fra blocchi copiati in array contigui,
+     * che restano in cache; solo quelli interni al blocco sono provati cella
+     * per cella. Con i vincoli o il conteggio delle strutture ottime ogni
+     * cella è calcolata da sola, come in {@code SEQUENTIAL}.
+     */
+    TILED
+
+}
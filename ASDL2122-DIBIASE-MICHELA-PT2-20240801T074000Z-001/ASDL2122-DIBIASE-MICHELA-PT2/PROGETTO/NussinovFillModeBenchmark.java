@@ -0,0 +1,90 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Confronta i tempi di riempimento della matrice di {@code NussinovFolder}
+ * nelle diverse modalità di {@code NussinovFillMode} su sequenze casuali di
+ * qualche migliaio di nucleotidi. Per ogni lunghezza viene riportato il tempo
+ * medio in nanosecondi di ogni modalità e lo speedup del riempimento a blocchi
+ * rispetto a quello sequenziale. I risultati sono scritti nel file
+ * fillmodebench.csv.
+ *
+ */
+public class NussinovFillModeBenchmark {
+
+    /**
+     * Lunghezze delle sequenze da generare
+     */
+    public static final int[] LENGTHS = { 1000, 2000, 3000, 4000, 5000 };
+
+    /**
+     * Numero di sequenze da generare per lunghezza
+     */
+    public static final int NUMBER_OF_SAMPLES_PER_LENGTH = 1;
+
+    /**
+     * Numero di folding di riscaldamento della JVM prima delle misure
+     */
+    public static final int WARMUP_FOLDS = 3;
+
+    public static void main(String[] args) {
+        String dirName = null;
+        if (args.length > 0)
+            dirName = args[0];
+        else
+            dirName = ".";
+        PrintStream o = null;
+        try {
+            o = new PrintStream(new File(dirName + "/" + "fillmodebench.csv"));
+        } catch (FileNotFoundException e) {
+            System.out.println("Errore creazione file di ouput");
+            System.exit(0);
+        }
+        Random randomGenerator = new Random();
+        // Riscaldamento: fa compilare al JIT i cicli interni di tutte le
+        // modalità, compresi i prodotti fra blocchi
+        for (int w = 0; w < WARMUP_FOLDS; w++) {
+            String sequence = RandomSequences.generate(randomGenerator, LENGTHS[0]);
+            for (NussinovFillMode mode : NussinovFillMode.values())
+                time(sequence, mode);
+        }
+        o.print("Length,");
+        for (NussinovFillMode mode : NussinovFillMode.values())
+            o.print(mode + " Tns,");
+        o.print("Speedup,");
+        o.print("\n");
+        for (int n : LENGTHS) {
+            long[] total = new long[NussinovFillMode.values().length];
+            for (int s = 0; s < NUMBER_OF_SAMPLES_PER_LENGTH; s++) {
+                String sequence = RandomSequences.generate(randomGenerator, n);
+                for (NussinovFillMode mode : NussinovFillMode.values())
+                    total[mode.ordinal()] += time(sequence, mode);
+            }
+            o.print(n + ",");
+            for (long t : total)
+                o.print(t / NUMBER_OF_SAMPLES_PER_LENGTH + ",");
+            double speedup = (double) total[NussinovFillMode.SEQUENTIAL.ordinal()]
+                    / total[NussinovFillMode.TILED.ordinal()];
+            o.print(String.format(Locale.ROOT, "%.2f", speedup)
+                    + ",");
+            o.print("\n");
+            System.out.println("Lunghezza " + n + ": speedup a blocchi "
+                    + String.format("%.2f", speedup));
+        }
+        o.close();
+    }
+
+    private static long time(String sequence, NussinovFillMode mode) {
+        NussinovFolder folder = new NussinovFolder(sequence);
+        folder.setFillMode(mode);
+        long startTimeNano = System.nanoTime();
+        folder.fold();
+        return System.nanoTime() - startTimeNano;
+    }
+
+}
@@ -5,6 +5,13 @@ package it.unicam.cs.asdl2122.pt2;
 
 
 
+import java.io.File;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 //ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
 
 
@@ -19,8 +26,29 @@ package it.unicam.cs.asdl2122.pt2;
 public class NussinovFolder implements FoldingAlgorithm {
 
     private final String primarySequence;
+    private final byte[] codes;
     private SecondaryStructure optimalSubstructure;
-    private int[][] nussinovJacobson;
+    private NussinovMatrix nussinovJacobson;
+    private TriangularLayout matrixLayout;
+    private boolean transposedShadow;
+    private int[][] pairBonus;
+    private PairingPartners partners;
+    private boolean countingOptimalStructures;
+    private long[] optimalCounts;
+    private int[] countStarts;
+    private NussinovFillMode fillMode;
+    private long parallelThreshold;
+    private int tileSize;
+    private long memoryBudget;
+    private long offHeapThreshold;
+    private File offHeapDirectory;
+    private FoldingConstraints constraints;
+    private PairingScheme pairingScheme;
+    // risultati dell'ultimo fold(), separati dallo stato del riempimento in
+    // corso, che computeOptimalCardinality() può ripetere senza toccarli
+    private NussinovMatrix foldedMatrix;
+    private PairingPartners foldedPartners;
+    private long numberOfOptimalStructures;
 
 
 
@@ -43,23 +71,338 @@ public class NussinovFolder implements FoldingAlgorithm {
                     "Tentativo di costruire un solutore Nussinov a partire da una sequenza nulla");
         String seq = primarySequence.toUpperCase().trim();
         // check bases in the primary structure - IUPAC nucleotide codes
-        for (int i = 0; i < seq.length(); i++)
-            switch (seq.charAt(i)) {
-                case 'A':
-                case 'U':
-                case 'C':
-                case 'G':
-                    break;
-                default:
-                    throw new IllegalArgumentException(
-                            "INPUT ERROR: primary structure contains an unkwnown nucleotide code at position "
-                                    + (i + 1));
-            }
+        this.codes = Nucleotides.encode(seq);
         this.primarySequence = seq;
 
-        this.nussinovJacobson = new int[seq.length()][seq.length()];
-
         this.optimalSubstructure = null;
+        this.matrixLayout = TriangularLayout.ROW_MAJOR;
+        this.fillMode = NussinovFillMode.SEQUENTIAL;
+        this.memoryBudget = Long.MAX_VALUE;
+        this.offHeapThreshold = Runtime.getRuntime().maxMemory() / 2;
+        this.parallelThreshold = AntiDiagonalWavefront.DEFAULT_THRESHOLD;
+        this.pairingScheme = PairingScheme.WOBBLE;
+    }
+
+    /**
+     * Restituisce la modalità di riempimento della matrice usata da
+     * {@code fold()}.
+     *
+     * @return la modalità di riempimento corrente
+     */
+    public NussinovFillMode getFillMode() {
+        return this.fillMode;
+    }
+
+    /**
+     * Imposta la modalità di riempimento della matrice usata dalle successive
+     * chiamate di {@code fold()}. Tutte le modalità restituiscono la stessa
+     * struttura ottima.
+     *
+     * @param fillMode
+     *                     la nuova modalità di riempimento
+     *
+     * @throws NullPointerException
+     *                                  se la modalità è nulla
+     */
+    public void setFillMode(NussinovFillMode fillMode) {
+        if (fillMode == null)
+            throw new NullPointerException(
+                    "Tentativo di impostare una modalità di riempimento nulla");
+        this.fillMode = fillMode;
+    }
+
+    /**
+     * Restituisce la disposizione in memoria della matrice di
+     * Nussinov-Jacobson.
+     *
+     * @return la disposizione corrente della matrice
+     */
+    public TriangularLayout getMatrixLayout() {
+        return this.matrixLayout;
+    }
+
+    /**
+     * Imposta la disposizione in memoria della matrice di Nussinov-Jacobson
+     * usata dalle successive chiamate di {@code fold()}. La matrice è
+     * memorizzata in forma triangolare compatta in un unico array.
+     *
+     * @param matrixLayout
+     *                         la nuova disposizione della matrice
+     *
+     * @throws NullPointerException
+     *                                  se la disposizione è nulla
+     */
+    public void setMatrixLayout(TriangularLayout matrixLayout) {
+        if (matrixLayout == null)
+            throw new NullPointerException(
+                    "Tentativo di impostare una disposizione della matrice nulla");
+        this.matrixLayout = matrixLayout;
+    }
+
+    /**
+     * Determina se la matrice mantiene una copia trasposta delle celle.
+     *
+     * @return true se la copia trasposta è attiva, false altrimenti
+     */
+    public boolean hasTransposedShadow() {
+        return this.transposedShadow;
+    }
+
+    /**
+     * Attiva o disattiva, per le successive chiamate di {@code fold()}, una
+     * copia trasposta (per colonne) della matrice di Nussinov-Jacobson. Con la
+     * copia attiva entrambi gli operandi del ciclo interno sono letti da
+     * memoria contigua, al prezzo del doppio della memoria; la disposizione
+     * impostata con {@code setMatrixLayout} viene ignorata perché le righe sono
+     * sempre memorizzate una dopo l'altra.
+     *
+     * @param transposedShadow
+     *                             true per attivare la copia trasposta
+     */
+    public void setTransposedShadow(boolean transposedShadow) {
+        this.transposedShadow = transposedShadow;
+    }
+
+    /**
+     * Restituisce il lato dei blocchi usati dal riempimento
+     * {@code NussinovFillMode.TILED}.
+     *
+     * @return il lato dei blocchi, 0 se viene scelto automaticamente
+     */
+    public int getTileSize() {
+        return this.tileSize;
+    }
+
+    /**
+     * Imposta il lato dei blocchi usati dal riempimento
+     * {@code NussinovFillMode.TILED}. Con il valore 0 il lato viene scelto
+     * automaticamente in modo che i tre blocchi di un prodotto (max, +) fra
+     * blocchi stiano nella cache L2.
+     *
+     * @param tileSize
+     *                     il lato dei blocchi, oppure 0
+     *
+     * @throws IllegalArgumentException
+     *                                      se il lato è negativo
+     */
+    public void setTileSize(int tileSize) {
+        if (tileSize < 0)
+            throw new IllegalArgumentException(
+                    "Il lato dei blocchi non può essere negativo");
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Determina se le successive chiamate di {@code fold()} contano le
+     * strutture ottime.
+     *
+     * @return true se il conteggio delle strutture ottime è attivo
+     */
+    public boolean isCountingOptimalStructures() {
+        return this.countingOptimalStructures;
+    }
+
+    /**
+     * Attiva o disattiva, per le successive chiamate di {@code fold()}, il
+     * conteggio delle strutture ottime distinte. Il conteggio riempie una
+     * seconda matrice di {@code long}, con lo stesso ordine e nella stessa
+     * passata della matrice di Nussinov-Jacobson, quindi il tempo resta
+     * {@code O(n^3)}; il ciclo interno non usa però le versioni specializzate
+     * di {@code maxSplit} ed è più lento. La seconda matrice occupa 8 byte per
+     * cella e non rientra nel limite di {@code setMemoryBudget}.
+     *
+     * @param countingOptimalStructures
+     *                                      true per contare le strutture
+     *                                      ottime
+     */
+    public void setCountingOptimalStructures(boolean countingOptimalStructures) {
+        this.countingOptimalStructures = countingOptimalStructures;
+    }
+
+    /**
+     * Restituisce il numero di strutture secondarie ottime distinte della
+     * sequenza, calcolato da {@code fold()}. Il numero cresce in modo
+     * esponenziale con la lunghezza della sequenza: quando supera
+     * {@code Long.MAX_VALUE} viene restituito {@code Long.MAX_VALUE}.
+     *
+     * @return il numero di strutture ottime, saturato a
+     *         {@code Long.MAX_VALUE}
+     *
+     * @throws IllegalStateException
+     *                                   se il folding non è ancora stato
+     *                                   eseguito o è stato eseguito senza il
+     *                                   conteggio delle strutture ottime
+     */
+    public long getNumberOfOptimalStructures() {
+        if (!isFolded() || numberOfOptimalStructures < 0)
+            throw new IllegalStateException(
+                    "Il folding non è stato eseguito con il conteggio delle strutture ottime");
+        return numberOfOptimalStructures;
+    }
+
+    /**
+     * Restituisce il limite di memoria per la matrice di Nussinov-Jacobson.
+     *
+     * @return il limite di memoria in byte
+     */
+    public long getMemoryBudget() {
+        return this.memoryBudget;
+    }
+
+    /**
+     * Imposta il limite di memoria, in byte, che la matrice di
+     * Nussinov-Jacobson può occupare nelle successive chiamate di
+     * {@code fold()}. Se la matrice compatta scelta dalle altre impostazioni
+     * non rientra nel limite, o non entra in un array, viene usata una
+     * matrice a punti di controllo che memorizza circa 1,5 bit per cella e
+     * ricalcola su richiesta il valore delle celle, sia durante il
+     * riempimento sia durante il traceback. Il risultato non cambia, il
+     * tempo di calcolo aumenta.
+     *
+     * @param memoryBudget
+     *                         il limite di memoria in byte
+     *
+     * @throws IllegalArgumentException
+     *                                      se il limite non è positivo
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        if (memoryBudget <= 0)
+            throw new IllegalArgumentException(
+                    "Il limite di memoria deve essere positivo");
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Restituisce la dimensione oltre la quale la matrice di
+     * Nussinov-Jacobson viene memorizzata in un file mappato in memoria.
+     *
+     * @return la soglia in byte
+     */
+    public long getOffHeapThreshold() {
+        return this.offHeapThreshold;
+    }
+
+    /**
+     * Imposta la dimensione, in byte, oltre la quale la matrice compatta di
+     * Nussinov-Jacobson viene memorizzata fuori dallo heap, in un file
+     * temporaneo mappato in memoria e diviso in segmenti da 1 GiB. È il
+     * sistema operativo a tenere in memoria le pagine usate e a scaricare le
+     * altre sul file, e il garbage collector non vede la matrice. Il file non
+     * è limitato dal massimo di un array e non conta nel limite di memoria di
+     * {@code setMemoryBudget}; la copia trasposta della matrice non viene
+     * usata. Per default la soglia è metà della memoria massima della JVM.
+     *
+     * @param offHeapThreshold
+     *                             la soglia in byte
+     *
+     * @throws IllegalArgumentException
+     *                                      se la soglia non è positiva
+     */
+    public void setOffHeapThreshold(long offHeapThreshold) {
+        if (offHeapThreshold <= 0)
+            throw new IllegalArgumentException(
+                    "La soglia per la matrice su file deve essere positiva");
+        this.offHeapThreshold = offHeapThreshold;
+    }
+
+    /**
+     * Imposta la cartella in cui creare il file della matrice quando supera
+     * la soglia di {@code setOffHeapThreshold}.
+     *
+     * @param offHeapDirectory
+     *                             la cartella, oppure null per la cartella
+     *                             temporanea di sistema
+     */
+    public void setOffHeapDirectory(File offHeapDirectory) {
+        this.offHeapDirectory = offHeapDirectory;
+    }
+
+    /**
+     * Imposta la soglia di lavoro (celle di un segmento di diagonale per
+     * lunghezza della diagonale) sotto la quale il riempimento parallelo
+     * calcola un segmento sequenzialmente.
+     *
+     * @param parallelThreshold
+     *                              la nuova soglia
+     *
+     * @throws IllegalArgumentException
+     *                                      se la soglia non è positiva
+     */
+    public void setParallelThreshold(long parallelThreshold) {
+        if (parallelThreshold <= 0)
+            throw new IllegalArgumentException(
+                    "La soglia di parallelismo deve essere positiva");
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Restituisce lo schema di appaiamento usato dalle successive chiamate di
+     * {@code fold()}.
+     *
+     * @return lo schema di appaiamento
+     */
+    public PairingScheme getPairingScheme() {
+        return this.pairingScheme;
+    }
+
+    /**
+     * Imposta lo schema di appaiamento per le successive chiamate di
+     * {@code fold()}: le coppie ammesse e il peso di ogni legame. I pesi
+     * prendono il posto del contributo 1 di ogni legame nella ricorrenza,
+     * quindi il ciclo interno resta lo stesso. Con uno schema pesato il
+     * massimo peso totale di una struttura si ottiene da
+     * {@code computeOptimalScore()} e {@code getOptimalScore}, mentre
+     * {@code computeOptimalCardinality()} e {@code getOptimalCardinality}
+     * restano il numero di legami di una struttura ottima, che richiede un
+     * traceback; {@code suboptimalStructures} misura la distanza dall'ottimo
+     * in peso. Con uno schema pesato non si può usare la
+     * matrice con punti di controllo di {@code setMemoryBudget}, e il prodotto
+     * fra {@code n / 2} e il peso massimo deve essere minore di 2^23.
+     *
+     * @param pairingScheme
+     *                          lo schema di appaiamento
+     *
+     * @throws NullPointerException
+     *                                  se lo schema è nullo
+     */
+    public void setPairingScheme(PairingScheme pairingScheme) {
+        if (pairingScheme == null)
+            throw new NullPointerException("Schema di appaiamento nullo");
+        this.pairingScheme = pairingScheme;
+    }
+
+    /**
+     * Restituisce i vincoli usati dalle successive chiamate di {@code fold()}.
+     *
+     * @return i vincoli, oppure null se non ce ne sono
+     */
+    public FoldingConstraints getConstraints() {
+        return this.constraints;
+    }
+
+    /**
+     * Imposta i vincoli per le successive chiamate di {@code fold()}. I
+     * vincoli sono applicati durante il riempimento: i partner di ogni
+     * nucleotide sono solo quelli ammessi dai vincoli e un nucleotide che
+     * deve essere legato non viene mai lasciato libero, quindi più la
+     * sequenza è vincolata più il riempimento è veloce. Con posizioni che
+     * devono essere legate le celle della matrice sono a 32 bit e la matrice
+     * con punti di controllo di {@code setMemoryBudget} non può essere usata.
+     * I vincoli non devono essere modificati durante il folding.
+     *
+     * @param constraints
+     *                        i vincoli, oppure null per non avere vincoli
+     *
+     * @throws IllegalArgumentException
+     *                                      se i vincoli sono per sequenze di
+     *                                      lunghezza diversa
+     */
+    public void setConstraints(FoldingConstraints constraints) {
+        if (constraints != null && constraints.getLength() != primarySequence.length())
+            throw new IllegalArgumentException("Vincoli per sequenze di "
+                    + constraints.getLength() + " nucleotidi invece di "
+                    + primarySequence.length());
+        this.constraints = constraints;
     }
 
     public String getName() {
@@ -78,78 +421,619 @@ public class NussinovFolder implements FoldingAlgorithm {
         return optimalSubstructure;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException
+     *                                      se nessuna struttura rispetta i
+     *                                      vincoli impostati
+     * @throws IllegalArgumentException
+     *                                      se con lo schema di appaiamento
+     *                                      il peso di una struttura può
+     *                                      superare 2^23
+     */
     @Override
     public void fold() {
+        try {
+            fill();
+            checkFeasible();
+            int i = 0;
+            int j = primarySequence.length()-1;
+            int[] pairs = traceback(nussinovJacobson, partners, i, j);
+            optimalSubstructure = buildStructure(primarySequence, pairs, pairingScheme);
+            foldedMatrix = nussinovJacobson;
+            foldedPartners = partners;
+            numberOfOptimalStructures = optimalCounts == null ? -1 : count(i, j);
+        } finally {
+            releaseFill();
+        }
+    }
+
+    /**
+     * Restituisce il numero di legami deboli di una struttura secondaria
+     * ottima senza pseudonodi della sottosequenza dalla posizione from alla
+     * posizione to, letto dalla matrice calcolata da {@code fold()}: in tempo
+     * costante con uno schema senza pesi, con un traceback limitato
+     * all'intervallo con uno schema pesato. La matrice non viene modificata,
+     * quindi il metodo può essere chiamato in parallelo da più thread.
+     *
+     * @param from
+     *                 la prima posizione della sottosequenza, a partire da 1
+     * @param to
+     *                 l'ultima posizione della sottosequenza, compresa
+     * @return il numero di legami deboli di una struttura ottima della
+     *         sottosequenza, -1 se nessuna struttura della sottosequenza
+     *         rispetta i vincoli
+     *
+     * @throws IllegalStateException
+     *                                      se il folding non è ancora stato
+     *                                      eseguito
+     * @throws IllegalArgumentException
+     *                                      se le posizioni non individuano una
+     *                                      sottosequenza
+     */
+    public int getOptimalCardinality(int from, int to) {
+        int score = getOptimalScore(from, to);
+        if (score < 0 || foldedPartners.getScheme().isUnweighted())
+            return score;
+        return traceback(foldedMatrix, foldedPartners, from - 1, to - 1).length / 2;
+    }
+
+    /**
+     * Restituisce, in tempo costante, il massimo peso totale secondo lo
+     * schema di appaiamento di una struttura secondaria senza pseudonodi
+     * della sottosequenza dalla posizione from alla posizione to, letto dalla
+     * matrice calcolata da {@code fold()}. Con uno schema senza pesi è il
+     * massimo numero di legami deboli. La matrice non viene modificata,
+     * quindi il metodo può essere chiamato in parallelo da più thread.
+     *
+     * @param from
+     *                 la prima posizione della sottosequenza, a partire da 1
+     * @param to
+     *                 l'ultima posizione della sottosequenza, compresa
+     * @return il massimo peso totale della sottosequenza, -1 se nessuna
+     *         struttura della sottosequenza rispetta i vincoli
+     *
+     * @throws IllegalStateException
+     *                                      se il folding non è ancora stato
+     *                                      eseguito
+     * @throws IllegalArgumentException
+     *                                      se le posizioni non individuano una
+     *                                      sottosequenza
+     */
+    public int getOptimalScore(int from, int to) {
+        checkSubsequence(from, to);
+        return Math.max(-1, foldedMatrix.get(from - 1, to - 1));
+    }
+
+    /**
+     * Restituisce una struttura secondaria ottima della sottosequenza dalla
+     * posizione from alla posizione to, con un traceback limitato
+     * all'intervallo sulla matrice calcolata da {@code fold()}. La struttura
+     * è sulla sequenza completa, con tutti i legami fra from e to. La matrice
+     * non viene modificata, quindi il metodo può essere chiamato in parallelo
+     * da più thread.
+     *
+     * @param from
+     *                 la prima posizione della sottosequenza, a partire da 1
+     * @param to
+     *                 l'ultima posizione della sottosequenza, compresa
+     * @return una struttura ottima della sottosequenza
+     *
+     * @throws IllegalStateException
+     *                                      se il folding non è ancora stato
+     *                                      eseguito
+     * @throws IllegalArgumentException
+     *                                      se le posizioni non individuano una
+     *                                      sottosequenza o se nessuna sua
+     *                                      struttura rispetta i vincoli
+     */
+    public SecondaryStructure getOneOptimalStructure(int from, int to) {
+        checkSubsequence(from, to);
+        if (foldedMatrix.get(from - 1, to - 1) < 0)
+            throw new IllegalArgumentException("Nessuna struttura della sottosequenza ["
+                    + from + ", " + to + "] rispetta i vincoli");
+        int[] pairs = traceback(foldedMatrix, foldedPartners, from - 1, to - 1);
+        return buildStructure(primarySequence, pairs, foldedPartners.getScheme());
+    }
+
+    /**
+     * Enumera tutte le strutture secondarie ottime della sequenza, ciascuna
+     * una sola volta. Lo stream è pigro: ogni struttura viene ricostruita
+     * dalla matrice calcolata da {@code fold()} solo quando viene richiesta,
+     * quindi con {@code limit(n)} si paga solo per le strutture consumate.
+     *
+     * @return lo stream delle strutture ottime
+     *
+     * @throws IllegalStateException
+     *                                   se il folding non è ancora stato
+     *                                   eseguito
+     */
+    public Stream<SecondaryStructure> optimalStructures() {
+        return suboptimalStructures(0);
+    }
+
+    /**
+     * Enumera tutte le strutture secondarie senza pseudonodi con al più delta
+     * legami in meno di una struttura ottima, ciascuna una sola volta. Lo
+     * stream è pigro come quello di {@code optimalStructures()}.
+     *
+     * @param delta
+     *                  il massimo numero di legami in meno rispetto all'ottimo
+     * @return lo stream delle strutture entro delta dall'ottimo
+     *
+     * @throws IllegalStateException
+     *                                      se il folding non è ancora stato
+     *                                      eseguito
+     * @throws IllegalArgumentException
+     *                                      se delta è negativo
+     */
+    public Stream<SecondaryStructure> suboptimalStructures(int delta) {
+        if (!isFolded())
+            throw new IllegalStateException();
+        if (delta < 0)
+            throw new IllegalArgumentException("Delta negativo: " + delta);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                new StructureEnumerator(foldedMatrix, foldedPartners, primarySequence, delta),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL),
+                false);
+    }
+
+    private void checkSubsequence(int from, int to) {
+        if (!isFolded())
+            throw new IllegalStateException();
+        if (from < 1 || to > primarySequence.length() || to < from)
+            throw new IllegalArgumentException("Sottosequenza [" + from + ", " + to
+                    + "] non valida per una sequenza di " + primarySequence.length()
+                    + " nucleotidi");
+    }
+
+    /**
+     * Calcola il numero di legami deboli di una struttura secondaria ottima
+     * senza pseudonodi senza costruire la struttura. Con uno schema senza
+     * pesi basta riempire la matrice; con uno schema pesato la matrice
+     * contiene pesi totali e i legami sono contati con il traceback. Non
+     * cambia lo stato di {@code isFolded()} né i risultati dell'ultimo
+     * {@code fold()}.
+     *
+     * @return il numero di legami deboli di una struttura ottima
+     *
+     * @throws IllegalStateException
+     *                                      se nessuna struttura rispetta i
+     *                                      vincoli impostati
+     * @throws IllegalArgumentException
+     *                                      se con lo schema di appaiamento
+     *                                      il peso di una struttura può
+     *                                      superare 2^23
+     */
+    @Override
+    public int computeOptimalCardinality() {
+        try {
+            fill();
+            checkFeasible();
+            if (partners.getScheme().isUnweighted())
+                return nussinovJacobson.get(0, primarySequence.length()-1);
+            return traceback(nussinovJacobson, partners, 0, primarySequence.length()-1).length / 2;
+        } finally {
+            releaseFill();
+        }
+    }
+
+    /**
+     * Calcola il massimo peso totale, secondo lo schema di appaiamento, di
+     * una struttura secondaria senza pseudonodi riempiendo solo la matrice,
+     * senza traceback e senza costruire la struttura. Con uno schema senza
+     * pesi è il massimo numero di legami deboli. Non cambia lo stato di
+     * {@code isFolded()} né i risultati dell'ultimo {@code fold()}.
+     *
+     * @return il massimo peso totale di una struttura
+     *
+     * @throws IllegalStateException
+     *                                      se nessuna struttura rispetta i
+     *                                      vincoli impostati
+     * @throws IllegalArgumentException
+     *                                      se con lo schema di appaiamento
+     *                                      il peso di una struttura può
+     *                                      superare 2^23
+     */
+    public int computeOptimalScore() {
+        try {
+            fill();
+            checkFeasible();
+            return nussinovJacobson.get(0, primarySequence.length()-1);
+        } finally {
+            releaseFill();
+        }
+    }
 
-        optimalSubstructure = new SecondaryStructure(this.primarySequence);
+    private void fill() {
         //per 1 ≤ i ≤ n, Ni,i = 0 ed Ni,i−1 = 0;
-        // per ogni i compresa tra 1 e n, inseriren nella posizione (i,i) e (i,i-1) lo zero
-        for(int i = 0; i < primarySequence.length(); i++) {
-            nussinovJacobson[i][i] = 0;
-            if(i > 0)
-                nussinovJacobson[i][i-1] = 0;
+        // la matrice nasce con tutte le celle a zero e restituisce zero per
+        // le posizioni (i,i-1), che non sono memorizzate
+        nussinovJacobson = createMatrix();
+        partners = new PairingPartners(codes, pairingScheme, constraints);
+        // con i vincoli si scorrono le liste dei partner, già potate
+        pairBonus = constraints == null ? buildPairBonus() : null;
+        int length = primarySequence.length();
+        // un nucleotide che deve essere legato non ha strutture da solo
+        for (int i = 0; i < length; i++)
+            if (partners.mustPair(i))
+                nussinovJacobson.set(i, i, NussinovMatrix.NO_PAIR);
+        optimalCounts = null;
+        if (countingOptimalStructures) {
+            // ogni intervallo di un solo nucleotide ha la sola struttura vuota
+            countStarts = NussinovMatrix.arrayStarts(length, TriangularLayout.ROW_MAJOR);
+            optimalCounts = new long[(int) TriangularLayout.cellCount(length)];
+            for (int i = 0; i < length; i++)
+                optimalCounts[countStarts[i]] = partners.mustPair(i) ? 0 : 1;
         }
 
-        for(int n = 1; n < primarySequence.length(); n++) {// prende la stringa per iniziare a controllare i
-            // neuclotidi (Si noti che il primo nucleotidi  ha posizione 1)
-            for(int i = 0; i < primarySequence.length()-n; i++) {// inizio a controllare le colonne
-                int j = i+n;//La matrice di Nussinov-Jacobson N e` una matrice di dimensione n × (n + 1)
-                // assegna come massimo il i, j-1 della matrice
-                int max = nussinovJacobson[i][j-1];
-                // in questo for troviamo il valore di val
-                for(int k = i; k < j; k++) {
-                    int val = -1;//il valore di val quando non ci sono legami
-                    //controlla se ci sono legami
-                    if(areValid(primarySequence.charAt(k), primarySequence.charAt(j)))
-                        if(k > 0)
-                            val = nussinovJacobson[i][k-1] + nussinovJacobson[k+1][j-1] + 1;
-                        else
-                            val = nussinovJacobson[k+1][j-1] + 1;
-                    if (val > max) {// se e piu grande val
-                        max = val;// allora val diventa il nuovo massimo
-                    }
+        // le celle di una anti-diagonale n = j - i dipendono solo dalle
+        // diagonali precedenti: in modalità parallela ogni diagonale viene
+        // suddivisa fra i thread del ForkJoinPool
+        if (fillMode == NussinovFillMode.TILED) {
+            // stesso ordine a fronte d'onda, ma sulle diagonali di blocchi:
+            // la soglia 1 rende ogni blocco un task separato
+            int tile = tileSize > 0 ? tileSize : defaultTileSize();
+            int tiles = (primarySequence.length() + tile - 1) / tile;
+            AntiDiagonalWavefront.run(tiles, 0, false, true, 1,
+                    (d, from, to) -> fillTiles(tile, d, from, to));
+        } else
+            AntiDiagonalWavefront.run(primarySequence.length(), 1, false,
+                    fillMode == NussinovFillMode.PARALLEL_WAVEFRONT,
+                    parallelThreshold, this::fillDiagonal);
+    }
+
+    /*
+     * Rilascia lo stato del riempimento, già pubblicato da fold() se serve:
+     * né fold() né computeOptimalCardinality() trattengono la matrice di
+     * lavoro dopo aver finito.
+     */
+    private void releaseFill() {
+        nussinovJacobson = null;
+        partners = null;
+        pairBonus = null;
+        optimalCounts = null;
+        countStarts = null;
+    }
+
+    private void checkFeasible() {
+        int length = primarySequence.length();
+        if (length > 0 && nussinovJacobson.get(0, length - 1) < 0)
+            throw new IllegalStateException(
+                    "Nessuna struttura secondaria rispetta i vincoli");
+    }
+
+    /*
+     * Sceglie la matrice più veloce che rientra nel limite di memoria, o la
+     * matrice su file oltre la soglia. Un legame usa due nucleotidi, quindi
+     * nessuna cella supera n/2 e per le sequenze fino a 131071 nucleotidi
+     * bastano celle a 16 bit. Le posizioni che devono essere legate rendono
+     * alcune celle negative: servono celle a 32 bit e non si può usare la
+     * matrice con punti di controllo, che richiede che lungo una riga i
+     * valori crescano di al più 1. Lo stesso vale per gli schemi pesati, in
+     * cui una cella arriva a n/2 volte il peso massimo. Perché una cella
+     * NO_PAIR sommata a qualunque valore resti negativa, e perché le somme
+     * non vadano in overflow, il massimo valore deve restare sotto
+     * -NO_PAIR / 2.
+     */
+    private NussinovMatrix createMatrix() {
+        int length = primarySequence.length();
+        boolean signed = constraints != null && constraints.hasForcedPaired();
+        long maxScore = (long) (length / 2) * pairingScheme.getMaxWeight();
+        if (maxScore >= -NussinovMatrix.NO_PAIR / 2)
+            throw new IllegalArgumentException("Con legami di peso fino a "
+                    + pairingScheme.getMaxWeight() + " una struttura di " + length
+                    + " nucleotidi può superare il massimo valore rappresentabile");
+        int maxValue = signed ? Integer.MAX_VALUE : (int) Math.min(Integer.MAX_VALUE, maxScore);
+        long cells = TriangularLayout.cellCount(length);
+        long bytes = cells * (maxValue <= Character.MAX_VALUE ? Character.BYTES : Integer.BYTES);
+        if (bytes > offHeapThreshold)
+            return new MappedTriangularMatrix(length, matrixLayout, maxValue,
+                    offHeapDirectory);
+        if (transposedShadow)
+            bytes *= 2;
+        if (bytes <= memoryBudget && cells <= NussinovMatrix.MAX_ARRAY_LENGTH) {
+            if (transposedShadow)
+                return NussinovMatrix.createWithTransposedShadow(length, maxValue);
+            return NussinovMatrix.create(length, matrixLayout, maxValue);
+        }
+        if (signed || !pairingScheme.isUnweighted())
+            throw new IllegalStateException("La matrice per " + length
+                    + " nucleotidi con posizioni vincolate a essere legate o con legami pesati"
+                    + " supera il limite di " + memoryBudget + " byte");
+        if (CheckpointedTriangularMatrix.bytes(length) > memoryBudget)
+            throw new IllegalStateException("La matrice per " + length
+                    + " nucleotidi richiede almeno "
+                    + CheckpointedTriangularMatrix.bytes(length)
+                    + " byte, oltre il limite di " + memoryBudget);
+        return new CheckpointedTriangularMatrix(length);
+    }
+
+    /*
+     * Per ogni nucleotide j prepara il vettore dei contributi dei legami
+     * (k, j): il peso del legame se k e j possono legarsi, NO_PAIR altrimenti. I nucleotidi
+     * uguali condividono lo stesso vettore, quindi la memoria è O(n).
+     */
+    private int[][] buildPairBonus() {
+        int[][] byBase = new int[Nucleotides.COUNT][codes.length];
+        for (byte b = 0; b < Nucleotides.COUNT; b++)
+            for (int k = 0; k < codes.length; k++)
+                byBase[b][k] = pairingScheme.canPair(codes[k], b)
+                        ? pairingScheme.weight(codes[k], b) : NussinovMatrix.NO_PAIR;
+        int[][] bonus = new int[codes.length][];
+        for (int j = 0; j < codes.length; j++)
+            bonus[j] = byBase[codes[j]];
+        return bonus;
+    }
+
+    private void fillDiagonal(int n, int from, int to) {// prende la diagonale n per iniziare a
+        // controllare i neuclotidi (Si noti che il primo nucleotidi  ha posizione 1)
+        for(int i = from; i < to; i++) {// inizio a controllare le colonne
+            int j = i+n;//La matrice di Nussinov-Jacobson N e` una matrice di dimensione n × (n + 1)
+            nussinovJacobson.set(i, j, computeCell(i, j));// inserisco il nuovo massimo sulla matrice in posizione i e j
+        }
+    }
+
+    /*
+     * Calcola i blocchi (b, b + d) per from <= b < to. Ogni cella (i, j)
+     * dipende solo da celle di colonne precedenti della stessa riga o della
+     * colonna j - 1, che stanno in blocchi di diagonali precedenti o nello
+     * stesso blocco: basta quindi procedere colonna per colonna. Con i
+     * vincoli o il conteggio delle strutture ottime ogni cella è calcolata
+     * da sola.
+     */
+    private void fillTiles(int tile, int d, int from, int to) {
+        int length = primarySequence.length();
+        for (int b = from; b < to; b++) {
+            int firstRow = b * tile;
+            int lastRow = Math.min(length, firstRow + tile) - 1;
+            int firstColumn = (b + d) * tile;
+            int lastColumn = Math.min(length, firstColumn + tile) - 1;
+            if (d == 0 || pairBonus == null || optimalCounts != null) {
+                for (int j = firstColumn; j <= lastColumn; j++)
+                    for (int i = Math.min(lastRow, j - 1); i >= firstRow; i--)
+                        nussinovJacobson.set(i, j, computeCell(i, j));
+            } else
+                fillTile(tile, firstRow, lastRow, firstColumn, lastColumn);
+        }
+    }
+
+    /*
+     * Calcola un blocco fuori dalla diagonale. I punti di divisione k in
+     * [lastRow, firstColumn - 1] leggono N(i, k - 1) nei blocchi a sinistra e
+     * N(k + 1, j - 1) nei blocchi sotto, già calcolati: vengono consumati a
+     * gruppi di tile con prodotti (max, +) fra blocchi tile x tile copiati in
+     * array contigui, così ogni gruppo legge solo tre blocchi. Restano, cella
+     * per cella, i punti di divisione in [i, lastRow - 1] e in
+     * [firstColumn, j - 1], al più 2 * tile per cella.
+     */
+    private void fillTile(int tile, int firstRow, int lastRow, int firstColumn,
+            int lastColumn) {
+        int rows = lastRow - firstRow + 1;
+        int columns = lastColumn - firstColumn + 1;
+        int[] left = new int[rows * tile];
+        int[] below = new int[tile * columns];
+        int[] best = new int[rows * columns];
+        Arrays.fill(best, MaxPlusMatrixProduct.NEGATIVE_INFINITY);
+        for (int k0 = lastRow; k0 < firstColumn; k0 += tile) {
+            int inner = Math.min(tile, firstColumn - k0);
+            for (int r = 0; r < rows; r++)
+                for (int t = 0; t < inner; t++)
+                    left[r * inner + t] = nussinovJacobson.get(firstRow + r, k0 + t - 1);
+            for (int t = 0; t < inner; t++) {
+                int k = k0 + t;
+                for (int c = 0; c < columns; c++) {
+                    int j = firstColumn + c;
+                    below[t * columns + c] = nussinovJacobson.get(k + 1, j - 1)
+                            + pairBonus[j][k];
                 }
-                nussinovJacobson[i][j] = max;// inserisco il nuovo massimo sulla matrice in posizione i e j
+            }
+            MaxPlusMatrixProduct.multiplyAccumulate(
+                    inner == tile ? left : Arrays.copyOf(left, rows * inner),
+                    inner == tile ? below : Arrays.copyOf(below, inner * columns),
+                    best, rows, inner, columns);
+        }
+        for (int c = 0; c < columns; c++) {
+            int j = firstColumn + c;
+            int[] bonus = pairBonus[j];
+            for (int r = rows - 1; r >= 0; r--) {
+                int i = firstRow + r;
+                int max = Math.max(nussinovJacobson.get(i, j-1), best[r * columns + c]);
+                for (int k = i; k < lastRow; k++)
+                    max = Math.max(max, nussinovJacobson.get(i, k-1)
+                            + nussinovJacobson.get(k+1, j-1) + bonus[k]);
+                for (int k = firstColumn; k < j; k++)
+                    max = Math.max(max, nussinovJacobson.get(i, k-1)
+                            + nussinovJacobson.get(k+1, j-1) + bonus[k]);
+                nussinovJacobson.set(i, j, max);
             }
         }
+    }
 
-        int i = 0;
-        int j = primarySequence.length()-1;
-        traceback(i, j);
+    /*
+     * Lato dei blocchi tale che i tre blocchi di int di un prodotto di
+     * fillTile (le celle a sinistra, quelle sotto e i massimi parziali)
+     * stiano in 256 KiB di cache L2, arrotondato a un multiplo di 16.
+     */
+    private int defaultTileSize() {
+        int side = (int) Math.sqrt((256 * 1024) / (3.0 * Integer.BYTES));
+        return Math.max(16, side / 16 * 16);
     }
 
-    private void traceback(int i, int j) {
-        if(j <= i)
-            return;
-        if(nussinovJacobson[i][j] == nussinovJacobson[i][j-1]) {// se in valore in posizione [i][j]
-            // e uguale a quello [i][j-1]
-            traceback(i, j-1);// faccio la ricorsione e diminuisco la j
-            return;
-        }
-        for(int k = i; k < j; k++) {// a k gli viene assegnatoa  il valore della colonna i
-            int val = 0;//assegnamo 0 a val
-            if(k > 0) { // se k e maggiore di zero
-                val = nussinovJacobson[i][k-1];// val prende il valore della posizione della matrice
-                // che stavamo controllando
+    private int computeCell(int i, int j) {
+        if (constraints != null)
+            return computeConstrainedCell(i, j);
+        if (optimalCounts != null)
+            return computeCountedCell(i, j);
+        // assegna come massimo il i, j-1 della matrice (j non legato) e lo
+        // confronta con il miglior legame (k, j): i k che non possono legarsi
+        // con j hanno contributo NO_PAIR e non vincono mai il confronto
+        int max = nussinovJacobson.get(i, j-1);
+        return Math.max(max, nussinovJacobson.maxSplit(i, j, pairBonus[j]));
+    }
+
+    /*
+     * Come computeCell, ma somma anche i conteggi delle alternative che
+     * raggiungono il massimo: j non legato, oppure legato a k con
+     * C(i, k-1) * C(k+1, j-1) strutture. Le alternative sono disgiunte,
+     * quindi ogni struttura ottima è contata una volta.
+     */
+    private int computeCountedCell(int i, int j) {
+        int[] bonus = pairBonus[j];
+        int max = nussinovJacobson.get(i, j-1);
+        long ways = count(i, j-1);
+        for (int k = i; k < j; k++) {
+            int val = nussinovJacobson.get(i, k-1) + nussinovJacobson.get(k+1, j-1) + bonus[k];
+            if (val >= max) {
+                long product = saturatedProduct(count(i, k-1), count(k+1, j-1));
+                if (val > max) {
+                    max = val;
+                    ways = product;
+                } else
+                    ways = saturatedSum(ways, product);
             }
-            if(areValid(primarySequence.charAt(k), primarySequence.charAt(j)) &&
-                    nussinovJacobson[i][j] == val + nussinovJacobson[k+1][j-1]+1) {
-                optimalSubstructure.addBond(new WeakBond(k+1, j+1));
-                traceback(i, k-1);
-                traceback(k+1, j-1);
-                return;
+        }
+        optimalCounts[countStarts[i] + j - i] = ways;
+        return max;
+    }
+
+    /*
+     * Come computeCell e computeCountedCell, ma prova come partner di j solo
+     * le posizioni delle liste già potate dai vincoli, fino al limite della
+     * lunghezza minima delle forcine, e non lascia j libero se deve essere
+     * legato. Le celle senza strutture ammesse valgono NO_PAIR e non
+     * contribuiscono mai a un massimo non negativo.
+     */
+    private int computeConstrainedCell(int i, int j) {
+        boolean counting = optimalCounts != null;
+        int max = NussinovMatrix.NO_PAIR;
+        long ways = 0;
+        if (!partners.mustPair(j)) {
+            max = nussinovJacobson.get(i, j-1);
+            if (counting)
+                ways = count(i, j-1);
+        }
+        int[] candidates = partners.of(j);
+        int end = partners.leftEnd(j);
+        for (int c = partners.firstAtLeast(j, i); c < end; c++) {
+            int k = candidates[c];
+            int val = nussinovJacobson.get(i, k-1) + nussinovJacobson.get(k+1, j-1)
+                    + partners.weight(k, j);
+            if (val < 0 || val < max)
+                continue;
+            long product = counting ? saturatedProduct(count(i, k-1), count(k+1, j-1)) : 0;
+            if (val > max) {
+                max = val;
+                ways = product;
+            } else
+                ways = saturatedSum(ways, product);
+        }
+        if (max < 0) {
+            max = NussinovMatrix.NO_PAIR;
+            ways = 0;
+        }
+        if (counting)
+            optimalCounts[countStarts[i] + j - i] = ways;
+        return max;
+    }
+
+    private long count(int i, int j) {
+        // un intervallo vuoto ha la sola struttura vuota
+        return j < i ? 1 : optimalCounts[countStarts[i] + j - i];
+    }
+
+    private static long saturatedSum(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long saturatedProduct(long a, long b) {
+        if (a != 0 && b > Long.MAX_VALUE / a)
+            return Long.MAX_VALUE;
+        return a * b;
+    }
+
+    /*
+     * Ricostruisce una struttura ottima dell'intervallo [i, j] a partire da una
+     * matrice che contiene, per ogni intervallo, il massimo numero di legami
+     * (o il massimo peso, con i pesi dello schema di partners).
+     * È condiviso dagli algoritmi che calcolano la stessa matrice in modo
+     * diverso. Gli intervalli ancora da esaminare stanno in una pila
+     * esplicita, così la profondità non dipende dalla lunghezza della
+     * sequenza; i legami trovati sono restituiti come coppie di posizioni
+     * (contate da 0) in un array {k1, j1, k2, j2, ...}, con due elementi per
+     * legame.
+     */
+    static int[] traceback(NussinovMatrix nussinovJacobson, PairingPartners partners,
+            int i, int j) {
+        // ogni legame pesa almeno 1, quindi i legami sono al più N(i, j)
+        int bonds = j > i ? nussinovJacobson.get(i, j) : 0;
+        int[] pairs = new int[2 * bonds];
+        int found = 0;
+        // ogni legame trovato toglie un intervallo dalla pila e ne aggiunge
+        // due, quindi gli intervalli in attesa non sono mai più di bonds + 1
+        int[] stack = new int[2 * (bonds + 1)];
+        int top = 0;
+        stack[top++] = i;
+        stack[top++] = j;
+        while (top > 0) {
+            j = stack[--top];
+            i = stack[--top];
+            // finché il valore in posizione [i][j] e uguale a quello [i][j-1]
+            // j non è legato e diminuisco la j (se i vincoli lo permettono)
+            while(j > i && !partners.mustPair(j)
+                    && nussinovJacobson.get(i, j) == nussinovJacobson.get(i, j-1))
+                j--;
+            if(j <= i)
+                continue;
+            // scorro solo i k fra i e j-1 che possono legarsi con j, in ordine
+            // crescente
+            int[] candidates = partners.of(j);
+            int end = partners.leftEnd(j);
+            for(int c = partners.firstAtLeast(j, i); c < end; c++) {
+                int k = candidates[c];
+                // val prende il valore della posizione della matrice che stavamo
+                // controllando (zero se k-1 < i)
+                int val = nussinovJacobson.get(i, k-1);
+                if(nussinovJacobson.get(i, j) == val + nussinovJacobson.get(k+1, j-1)
+                        + partners.weight(k, j)) {
+                    pairs[found++] = k;
+                    pairs[found++] = j;
+                    stack[top++] = k+1;
+                    stack[top++] = j-1;
+                    stack[top++] = i;
+                    stack[top++] = k-1;
+                    break;
+                }
             }
         }
+        return found == pairs.length ? pairs : Arrays.copyOf(pairs, found);
     }
-    // sono i legami ammessi
-    private boolean areValid(char charI, char charJ) {
-        return isValid(charI, charJ, 'G', 'C') ||
-                isValid(charI, charJ, 'A', 'U') ||
-                isValid(charI, charJ, 'U', 'G');
+
+    /*
+     * Costruisce la struttura secondaria con i legami restituiti da traceback.
+     */
+    static SecondaryStructure buildStructure(String primarySequence, int[] pairs) {
+        return buildStructure(primarySequence, pairs, PairingScheme.WOBBLE);
     }
 
-    private boolean isValid(char n1, char n2, char validN1, char validN2) {
-        return n1 == validN2 && n2 == validN1 || n1 == validN1 && n2 == validN2;
+    /*
+     * Come buildStructure, con le coppie ammesse da uno schema di appaiamento.
+     */
+    static SecondaryStructure buildStructure(String primarySequence, int[] pairs,
+            PairingScheme scheme) {
+        SecondaryStructure structure = new SecondaryStructure(primarySequence, scheme);
+        for (int p = 0; p < pairs.length; p += 2)
+            structure.addBond(new WeakBond(pairs[p]+1, pairs[p+1]+1));
+        return structure;
+    }
+
+    /*
+     * Matrice calcolata dall'ultimo fold(), da usare solo in lettura.
+     */
+    NussinovMatrix getMatrix() {
+        return foldedMatrix;
     }
 
     @Override // isFolded restituisce: true se il folding sulla sequenza è stato eseguito, false altrimenti
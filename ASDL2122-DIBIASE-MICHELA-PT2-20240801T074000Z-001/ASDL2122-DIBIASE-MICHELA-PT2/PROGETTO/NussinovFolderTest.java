@@ -2,6 +2,12 @@ package it.unicam.cs.asdl2122.pt2;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -32,4 +38,501 @@ class NussinovFolderTest {
         assertTrue(nussinovFolder.isFolded());
     }
 
+    @Test
+    final void testParallelWavefrontFold() {
+        Random random = new Random(2122);
+        for (int length : new int[] { 0, 1, 2, 17, 120, 301 }) {
+            String sequence = RandomSequences.generate(random, length);
+            NussinovFolder sequential = new NussinovFolder(sequence);
+            sequential.fold();
+            NussinovFolder parallel = new NussinovFolder(sequence);
+            parallel.setFillMode(NussinovFillMode.PARALLEL_WAVEFRONT);
+            // soglia minima per forzare la suddivisione delle diagonali
+            parallel.setParallelThreshold(1);
+            parallel.fold();
+            assertEquals(sequential.getOneOptimalStructure(),
+                    parallel.getOneOptimalStructure());
+        }
+        NussinovFolder nussinovFolder = new NussinovFolder("GCACGACG");
+        assertThrows(NullPointerException.class, () -> nussinovFolder.setFillMode(null));
+        assertThrows(IllegalArgumentException.class, () -> nussinovFolder.setParallelThreshold(0));
+    }
+
+    @Test
+    final void testMatrixLayouts() {
+        Random random = new Random(113966);
+        for (int length : new int[] { 0, 1, 5, 64, 257 }) {
+            String sequence = RandomSequences.generate(random, length);
+            NussinovFolder rowMajor = new NussinovFolder(sequence);
+            assertEquals(TriangularLayout.ROW_MAJOR, rowMajor.getMatrixLayout());
+            rowMajor.fold();
+            NussinovFolder diagonalMajor = new NussinovFolder(sequence);
+            diagonalMajor.setMatrixLayout(TriangularLayout.DIAGONAL_MAJOR);
+            diagonalMajor.fold();
+            assertEquals(rowMajor.getOneOptimalStructure(),
+                    diagonalMajor.getOneOptimalStructure());
+        }
+        assertEquals(15, TriangularLayout.cellCount(5));
+    }
+
+    @Test
+    final void testTransposedShadow() {
+        Random random = new Random(2022);
+        for (int length : new int[] { 0, 1, 2, 3, 90, 211 }) {
+            String sequence = RandomSequences.generate(random, length);
+            NussinovFolder plain = new NussinovFolder(sequence);
+            plain.fold();
+            NussinovFolder shadowed = new NussinovFolder(sequence);
+            shadowed.setTransposedShadow(true);
+            assertTrue(shadowed.hasTransposedShadow());
+            shadowed.fold();
+            assertEquals(plain.getOneOptimalStructure(),
+                    shadowed.getOneOptimalStructure());
+        }
+    }
+
+    @Test
+    final void testTiledFold() {
+        Random random = new Random(74);
+        for (int length : new int[] { 0, 1, 33, 150, 400 })
+            for (int tileSize : new int[] { 0, 1, 7, 32, 1000 }) {
+                String sequence = RandomSequences.generate(random, length);
+                NussinovFolder sequential = new NussinovFolder(sequence);
+                sequential.fold();
+                NussinovFolder tiled = new NussinovFolder(sequence);
+                tiled.setFillMode(NussinovFillMode.TILED);
+                tiled.setTileSize(tileSize);
+                tiled.fold();
+                assertEquals(sequential.getOneOptimalStructure(),
+                        tiled.getOneOptimalStructure());
+            }
+        NussinovFolder nussinovFolder = new NussinovFolder("GCACGACG");
+        assertEquals(0, nussinovFolder.getTileSize());
+        assertThrows(IllegalArgumentException.class, () -> nussinovFolder.setTileSize(-1));
+    }
+
+    @Test
+    final void testTracebackDoesNotRecursePerUnpairedBase() {
+        // matrice di una sequenza lunghissima senza legami: una traceback
+        // ricorsiva farebbe un milione di chiamate annidate
+        int n = 1_000_000;
+        NussinovMatrix empty = new NussinovMatrix(n) {
+            @Override
+            int get(int i, int j) {
+                return 0;
+            }
+
+            @Override
+            void set(int i, int j, int value) {
+            }
+        };
+        byte[] codes = new byte[n];
+        int[] pairs = NussinovFolder.traceback(empty, new PairingPartners(codes), 0, n - 1);
+        assertEquals(0, pairs.length);
+    }
+
+    @Test
+    final void testTracebackPairs() {
+        NussinovFolder nussinovFolder = new NussinovFolder("GGGAAAUCC");
+        nussinovFolder.fold();
+        SecondaryStructure structure = nussinovFolder.getOneOptimalStructure();
+        assertEquals(3, structure.getCardinality());
+        assertFalse(structure.isPseudoknotted());
+    }
+
+    @Test
+    final void testComputeOptimalCardinality() {
+        Random random = new Random(400);
+        for (int length : new int[] { 0, 1, 2, 50, 199 }) {
+            String sequence = RandomSequences.generate(random, length);
+            NussinovFolder folder = new NussinovFolder(sequence);
+            int score = folder.computeOptimalCardinality();
+            // il solo valore ottimo non produce una struttura
+            assertFalse(folder.isFolded());
+            folder.fold();
+            assertEquals(folder.getOneOptimalStructure().getCardinality(), score);
+            assertEquals(score, new SparseNussinovFolder(sequence).computeOptimalCardinality());
+            assertEquals(score, new FourRussiansNussinovFolder(sequence).computeOptimalCardinality());
+        }
+    }
+
+    @Test
+    final void testMemoryBudget() {
+        Random random = new Random(50);
+        for (int length : new int[] { 0, 1, 63, 64, 65, 200, 333 }) {
+            String sequence = RandomSequences.generate(random, length);
+            NussinovFolder unbounded = new NussinovFolder(sequence);
+            unbounded.fold();
+            for (NussinovFillMode mode : NussinovFillMode.values()) {
+                NussinovFolder bounded = new NussinovFolder(sequence);
+                bounded.setFillMode(mode);
+                bounded.setTileSize(16);
+                // tranne che per le sequenze cortissime la matrice compatta a
+                // 16 bit non rientra nel limite
+                bounded.setMemoryBudget(Math.max(1, CheckpointedTriangularMatrix.bytes(length)));
+                bounded.fold();
+                assertEquals(unbounded.getOneOptimalStructure(),
+                        bounded.getOneOptimalStructure());
+            }
+        }
+        NussinovFolder tooSmall = new NussinovFolder("GCACGACG");
+        tooSmall.setMemoryBudget(8);
+        assertThrows(IllegalStateException.class, () -> tooSmall.fold());
+        assertThrows(IllegalArgumentException.class, () -> tooSmall.setMemoryBudget(0));
+    }
+
+    @Test
+    final void testOffHeapMatrix() {
+        Random random = new Random(60);
+        for (int length : new int[] { 1, 2, 150, 301 }) {
+            String sequence = RandomSequences.generate(random, length);
+            NussinovFolder inHeap = new NussinovFolder(sequence);
+            inHeap.fold();
+            for (NussinovFillMode mode : NussinovFillMode.values()) {
+                NussinovFolder offHeap = new NussinovFolder(sequence);
+                offHeap.setFillMode(mode);
+                offHeap.setMatrixLayout(TriangularLayout.DIAGONAL_MAJOR);
+                offHeap.setOffHeapThreshold(1);
+                offHeap.fold();
+                assertEquals(inHeap.getOneOptimalStructure(),
+                        offHeap.getOneOptimalStructure());
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new NussinovFolder("GC").setOffHeapThreshold(0));
+    }
+
+    @Test
+    final void testSubsequenceQueries() {
+        Random random = new Random(110);
+        String sequence = RandomSequences.generate(random, 70);
+        NussinovFolder folder = new NussinovFolder(sequence);
+        assertThrows(IllegalStateException.class, () -> folder.getOptimalCardinality(1, 2));
+        folder.fold();
+        for (int from = 1; from <= 70; from += 3)
+            for (int to = from; to <= 70; to += 5) {
+                NussinovFolder sub = new NussinovFolder(sequence.substring(from - 1, to));
+                sub.fold();
+                int expected = sub.getOneOptimalStructure().getCardinality();
+                assertEquals(expected, folder.getOptimalCardinality(from, to));
+                SecondaryStructure structure = folder.getOneOptimalStructure(from, to);
+                assertEquals(sequence, structure.getPrimarySequence());
+                assertEquals(expected, structure.getCardinality());
+                for (WeakBond bond : structure.getBonds())
+                    assertTrue(from <= bond.getI() && bond.getJ() <= to);
+            }
+        assertEquals(folder.getOneOptimalStructure(), folder.getOneOptimalStructure(1, 70));
+        assertThrows(IllegalArgumentException.class, () -> folder.getOptimalCardinality(0, 5));
+        assertThrows(IllegalArgumentException.class, () -> folder.getOptimalCardinality(5, 71));
+        assertThrows(IllegalArgumentException.class, () -> folder.getOneOptimalStructure(6, 5));
+    }
+
+    @Test
+    final void testEnumerateStructures() {
+        NussinovFolder folder = new NussinovFolder("GCGC");
+        assertThrows(IllegalStateException.class, () -> folder.optimalStructures());
+        folder.fold();
+        // GCGC: (1,2) con (3,4), oppure (1,4) con (2,3)
+        List<SecondaryStructure> optimal = folder.optimalStructures().collect(Collectors.toList());
+        assertEquals(2, optimal.size());
+        assertTrue(optimal.contains(folder.getOneOptimalStructure()));
+        assertThrows(IllegalArgumentException.class, () -> folder.suboptimalStructures(-1));
+        Random random = new Random(120);
+        for (int length : new int[] { 0, 1, 8, 12 }) {
+            String sequence = RandomSequences.generate(random, length);
+            NussinovFolder f = new NussinovFolder(sequence);
+            f.fold();
+            int best = f.getOneOptimalStructure().getCardinality();
+            for (int delta = 0; delta <= 2; delta++) {
+                Set<SecondaryStructure> structures = new HashSet<>();
+                int d = delta;
+                f.suboptimalStructures(delta).forEach(s -> {
+                    assertTrue(structures.add(s));
+                    assertFalse(s.isPseudoknotted());
+                    assertTrue(s.getCardinality() >= best - d);
+                });
+                assertEquals(countStructures(sequence, best - delta), structures.size());
+            }
+        }
+        // limit interrompe l'enumerazione
+        NussinovFolder poly = new NussinovFolder("GCGCGCGCGCGCGCGCGCGCGCGCGCGCGCGCGCGCGCGC");
+        poly.fold();
+        assertEquals(5, poly.optimalStructures().limit(5).count());
+    }
+
+    @Test
+    final void testNumberOfOptimalStructures() {
+        NussinovFolder folder = new NussinovFolder("GCGC");
+        folder.fold();
+        assertThrows(IllegalStateException.class, () -> folder.getNumberOfOptimalStructures());
+        folder.setCountingOptimalStructures(true);
+        folder.fold();
+        assertEquals(2, folder.getNumberOfOptimalStructures());
+        Random random = new Random(130);
+        for (int length : new int[] { 0, 1, 10, 16, 22 }) {
+            String sequence = RandomSequences.generate(random, length);
+            for (NussinovFillMode mode : NussinovFillMode.values()) {
+                NussinovFolder counting = new NussinovFolder(sequence);
+                counting.setFillMode(mode);
+                counting.setTileSize(16);
+                counting.setCountingOptimalStructures(true);
+                counting.fold();
+                assertEquals(counting.optimalStructures().count(),
+                        counting.getNumberOfOptimalStructures());
+            }
+        }
+        // il numero di strutture ottime di (GC)^n cresce esponenzialmente
+        NussinovFolder poly = new NussinovFolder(
+                new String(new char[200]).replace("\0", "GC"));
+        poly.setCountingOptimalStructures(true);
+        poly.fold();
+        assertEquals(Long.MAX_VALUE, poly.getNumberOfOptimalStructures());
+    }
+
+    @Test
+    final void testComputeOptimalCardinalityKeepsFoldedState() {
+        String sequence = "GGGAAAUCCGCAUAGCUA";
+        NussinovFolder folder = new NussinovFolder(sequence);
+        folder.setCountingOptimalStructures(true);
+        folder.fold();
+        long structures = folder.getNumberOfOptimalStructures();
+        int cardinality = folder.getOptimalCardinality(1, sequence.length());
+        SecondaryStructure inner = folder.getOneOptimalStructure(3, 12);
+        // un calcolo del solo valore con altre impostazioni non tocca i
+        // risultati del folding
+        folder.setCountingOptimalStructures(false);
+        assertEquals(cardinality, folder.computeOptimalCardinality());
+        assertEquals(structures, folder.getNumberOfOptimalStructures());
+        assertEquals(cardinality, folder.getOptimalCardinality(1, sequence.length()));
+        assertEquals(inner, folder.getOneOptimalStructure(3, 12));
+        assertEquals(structures, folder.optimalStructures().count());
+    }
+
+    @Test
+    final void testConstraints() {
+        Random random = new Random(23);
+        for (int round = 0; round < 40; round++) {
+            String sequence = RandomSequences.generate(random, 4 + random.nextInt(9));
+            int n = sequence.length();
+            FoldingConstraints constraints = new FoldingConstraints(n);
+            constraints.setMinHairpin(random.nextInt(3));
+            for (int p = 1; p <= n; p++) {
+                int choice = random.nextInt(8);
+                if (choice == 0)
+                    constraints.forceUnpaired(p);
+                else if (choice == 1)
+                    constraints.forcePaired(p);
+            }
+            for (int b = 0; b < 3; b++) {
+                int i = 1 + random.nextInt(n - 1);
+                constraints.forbidBond(new WeakBond(i, i + 1 + random.nextInt(n - i)));
+            }
+            // tutte le strutture della sequenza, filtrate con i vincoli
+            NussinovFolder free = new NussinovFolder(sequence);
+            free.fold();
+            List<SecondaryStructure> allowed = free.suboptimalStructures(n)
+                    .filter(s -> satisfies(s, constraints)).collect(Collectors.toList());
+            int best = allowed.stream().mapToInt(SecondaryStructure::getCardinality)
+                    .max().orElse(-1);
+            for (boolean counting : new boolean[] { false, true }) {
+                NussinovFolder folder = new NussinovFolder(sequence);
+                folder.setConstraints(constraints);
+                folder.setCountingOptimalStructures(counting);
+                if (best < 0) {
+                    assertThrows(IllegalStateException.class, () -> folder.fold());
+                    continue;
+                }
+                folder.fold();
+                SecondaryStructure structure = folder.getOneOptimalStructure();
+                assertEquals(best, structure.getCardinality());
+                assertTrue(satisfies(structure, constraints));
+                assertEquals(allowed.stream().filter(s -> s.getCardinality() == best)
+                        .collect(Collectors.toSet()),
+                        folder.optimalStructures().collect(Collectors.toSet()));
+                if (counting)
+                    assertEquals(allowed.stream().filter(s -> s.getCardinality() == best)
+                            .count(), folder.getNumberOfOptimalStructures());
+                // con un margine enorme le alternative che leggono celle
+                // NO_PAIR restano escluse: escono tutte e sole le strutture
+                // ammesse, ognuna una volta
+                for (int delta : new int[] { 1 << 24, Integer.MAX_VALUE }) {
+                    List<SecondaryStructure> all = folder.suboptimalStructures(delta)
+                            .collect(Collectors.toList());
+                    assertEquals(allowed.size(), all.size());
+                    assertEquals(new HashSet<SecondaryStructure>(allowed),
+                            new HashSet<SecondaryStructure>(all));
+                }
+            }
+        }
+        NussinovFolder folder = new NussinovFolder("GCAU");
+        assertThrows(IllegalArgumentException.class,
+                () -> folder.setConstraints(new FoldingConstraints(3)));
+        FoldingConstraints constraints = new FoldingConstraints(4);
+        constraints.setMinHairpin(1);
+        constraints.forcePaired(3);
+        folder.setConstraints(constraints);
+        // A in 3 può legarsi solo con U in 4, troppo vicina
+        assertThrows(IllegalStateException.class, () -> folder.computeOptimalCardinality());
+        folder.setConstraints(null);
+        assertEquals(2, folder.computeOptimalCardinality());
+    }
+
+    @Test
+    final void testPairingSchemes() {
+        Random random = new Random(29);
+        PairingScheme[] schemes = { PairingScheme.CANONICAL, PairingScheme.WOBBLE,
+                PairingScheme.HYDROGEN_BONDS, PairingScheme.weighted(1, 0, 5) };
+        for (int round = 0; round < 30; round++) {
+            String sequence = RandomSequences.generate(random, 1 + random.nextInt(12));
+            NussinovFolder free = new NussinovFolder(sequence);
+            free.fold();
+            List<SecondaryStructure> all = free.suboptimalStructures(sequence.length())
+                    .collect(Collectors.toList());
+            for (PairingScheme scheme : schemes) {
+                // massimo peso fra le strutture con sole coppie dello schema
+                int best = 0;
+                for (SecondaryStructure structure : all) {
+                    SecondaryStructure rescored = rescore(structure, scheme);
+                    if (rescored != null)
+                        best = Math.max(best, rescored.getScore());
+                }
+                NussinovFolder folder = new NussinovFolder(sequence);
+                folder.setPairingScheme(scheme);
+                folder.fold();
+                SecondaryStructure structure = folder.getOneOptimalStructure();
+                assertSame(scheme, structure.getPairingScheme());
+                assertEquals(best, structure.getScore());
+                // il punteggio è il peso totale, la cardinalità il numero di
+                // legami della struttura ottima
+                assertEquals(best, folder.computeOptimalScore());
+                assertEquals(best, folder.getOptimalScore(1, sequence.length()));
+                assertEquals(structure.getCardinality(), folder.computeOptimalCardinality());
+                assertEquals(structure.getCardinality(),
+                        folder.getOptimalCardinality(1, sequence.length()));
+                // lo stesso risultato passando dalle liste potate dei vincoli
+                folder.setConstraints(new FoldingConstraints(sequence.length()));
+                folder.fold();
+                assertEquals(best, folder.getOneOptimalStructure().getScore());
+            }
+        }
+        assertThrows(NullPointerException.class,
+                () -> new NussinovFolder("GCAU").setPairingScheme(null));
+    }
+
+    @Test
+    final void testWeightedSubsequenceQueries() {
+        Random random = new Random(31);
+        String sequence = RandomSequences.generate(random, 50);
+        NussinovFolder folder = new NussinovFolder(sequence);
+        folder.setPairingScheme(PairingScheme.HYDROGEN_BONDS);
+        assertThrows(IllegalStateException.class, () -> folder.getOptimalScore(1, 2));
+        folder.fold();
+        for (int from = 1; from <= 50; from += 3)
+            for (int to = from; to <= 50; to += 4) {
+                NussinovFolder sub = new NussinovFolder(sequence.substring(from - 1, to));
+                sub.setPairingScheme(PairingScheme.HYDROGEN_BONDS);
+                sub.fold();
+                SecondaryStructure expected = sub.getOneOptimalStructure();
+                assertEquals(expected.getScore(), folder.getOptimalScore(from, to));
+                assertEquals(expected.getCardinality(), folder.getOptimalCardinality(from, to));
+                assertEquals(expected.getScore(), folder.getOneOptimalStructure(from, to).getScore());
+            }
+        assertThrows(IllegalArgumentException.class, () -> folder.getOptimalScore(0, 5));
+        assertThrows(IllegalArgumentException.class, () -> folder.getOptimalScore(5, 51));
+    }
+
+    @Test
+    final void testWeightLimit() {
+        PairingScheme heavy = PairingScheme.weighted(1 << 16, 1, 1);
+        // 127 legami GC da 2^16 restano sotto il limite di 2^23
+        String sequence = "A" + new String(new char[127]).replace("\0", "G")
+                + new String(new char[127]).replace("\0", "C");
+        NussinovFolder folder = new NussinovFolder(sequence);
+        folder.setPairingScheme(heavy);
+        folder.fold();
+        assertEquals(127 << 16, folder.getOneOptimalStructure().getScore());
+        // A in 1 non ha U con cui legarsi
+        FoldingConstraints constraints = new FoldingConstraints(sequence.length());
+        constraints.forcePaired(1);
+        folder.setConstraints(constraints);
+        assertThrows(IllegalStateException.class, () -> folder.fold());
+        // un nucleotide in più porta a 128 legami possibili, cioè a 2^23
+        NussinovFolder longer = new NussinovFolder(sequence + "C");
+        longer.setPairingScheme(heavy);
+        assertThrows(IllegalArgumentException.class, () -> longer.fold());
+        NussinovFolder overflow = new NussinovFolder("A"
+                + new String(new char[20]).replace("\0", "G")
+                + new String(new char[20]).replace("\0", "C"));
+        overflow.setPairingScheme(PairingScheme.weighted(1 << 20, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> overflow.computeOptimalScore());
+        assertThrows(IllegalArgumentException.class, () -> overflow.computeOptimalCardinality());
+    }
+
+    /*
+     * La stessa struttura con lo schema dato, null se usa coppie non ammesse.
+     */
+    private static SecondaryStructure rescore(SecondaryStructure structure,
+            PairingScheme scheme) {
+        SecondaryStructure result = new SecondaryStructure(
+                structure.getPrimarySequence(), scheme);
+        try {
+            for (WeakBond bond : structure.getBonds())
+                result.addBond(bond);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return result;
+    }
+
+    private static boolean satisfies(SecondaryStructure structure,
+            FoldingConstraints constraints) {
+        Set<Integer> paired = new HashSet<Integer>();
+        for (WeakBond bond : structure.getBonds()) {
+            if (!constraints.allows(bond))
+                return false;
+            paired.add(bond.getI());
+            paired.add(bond.getJ());
+        }
+        for (int p = 1; p <= constraints.getLength(); p++)
+            if (constraints.isForcedPaired(p) && !paired.contains(p))
+                return false;
+        return true;
+    }
+
+    /*
+     * Numero di strutture senza pseudonodi con almeno min legami, contate
+     * decomponendo gli intervalli sul primo nucleotide invece che
+     * sull'ultimo.
+     */
+    private static int countStructures(String sequence, int min) {
+        byte[] codes = Nucleotides.encode(sequence);
+        int[] byBonds = countByBonds(codes, 0, codes.length - 1);
+        int count = 0;
+        for (int b = Math.max(0, min); b < byBonds.length; b++)
+            count += byBonds[b];
+        return count;
+    }
+
+    private static int[] countByBonds(byte[] codes, int i, int j) {
+        int[] result = new int[codes.length / 2 + 1];
+        if (j <= i) {
+            result[0] = 1;
+            return result;
+        }
+        // i non legato
+        int[] rest = countByBonds(codes, i + 1, j);
+        for (int b = 0; b < result.length; b++)
+            result[b] += rest[b];
+        // i legato a m
+        for (int m = i + 1; m <= j; m++)
+            if (Nucleotides.canPair(codes[i], codes[m])) {
+                int[] inside = countByBonds(codes, i + 1, m - 1);
+                int[] outside = countByBonds(codes, m + 1, j);
+                for (int x = 0; x < result.length; x++)
+                    for (int y = 0; x + y + 1 < result.length; y++)
+                        result[x + y + 1] += inside[x] * outside[y];
+            }
+        return result;
+    }
+
 }
@@ -0,0 +1,95 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Confronta i tempi di folding di {@code NussinovFolder} con le diverse
+ * disposizioni in memoria della matrice (per righe, per diagonali e per righe
+ * con copia trasposta) su sequenze casuali di lunghezza crescente. Per ogni
+ * lunghezza viene riportato il tempo medio in nanosecondi di ogni disposizione
+ * e lo speedup della copia trasposta rispetto alla disposizione per righe. I
+ * risultati sono scritti nel file layoutbench.csv.
+ *
+ */
+public class NussinovLayoutBenchmark {
+
+    /**
+     * Lunghezze delle sequenze da generare
+     */
+    public static final int[] LENGTHS = { 250, 500, 1000, 1500, 2000, 3000 };
+
+    /**
+     * Numero di sequenze da generare per lunghezza
+     */
+    public static final int NUMBER_OF_SAMPLES_PER_LENGTH = 3;
+
+    /**
+     * Numero di folding di riscaldamento della JVM prima delle misure
+     */
+    public static final int WARMUP_FOLDS = 5;
+
+    public static void main(String[] args) {
+        String dirName = null;
+        if (args.length > 0)
+            dirName = args[0];
+        else
+            dirName = ".";
+        PrintStream o = null;
+        try {
+            o = new PrintStream(new File(dirName + "/" + "layoutbench.csv"));
+        } catch (FileNotFoundException e) {
+            System.out.println("Errore creazione file di ouput");
+            System.exit(0);
+        }
+        Random randomGenerator = new Random();
+        // Riscaldamento: fa compilare al JIT i cicli interni di tutte le
+        // disposizioni
+        for (int w = 0; w < WARMUP_FOLDS; w++) {
+            String sequence = RandomSequences.generate(randomGenerator, LENGTHS[0]);
+            for (TriangularLayout layout : TriangularLayout.values())
+                time(sequence, layout, false);
+            time(sequence, TriangularLayout.ROW_MAJOR, true);
+        }
+        o.print("Length,");
+        for (TriangularLayout layout : TriangularLayout.values())
+            o.print(layout + " Tns,");
+        o.print("TRANSPOSED_SHADOW Tns,Speedup,");
+        o.print("\n");
+        for (int n : LENGTHS) {
+            long[] total = new long[TriangularLayout.values().length + 1];
+            for (int s = 0; s < NUMBER_OF_SAMPLES_PER_LENGTH; s++) {
+                String sequence = RandomSequences.generate(randomGenerator, n);
+                for (TriangularLayout layout : TriangularLayout.values())
+                    total[layout.ordinal()] += time(sequence, layout, false);
+                total[total.length - 1] += time(sequence,
+                        TriangularLayout.ROW_MAJOR, true);
+            }
+            o.print(n + ",");
+            for (long t : total)
+                o.print(t / NUMBER_OF_SAMPLES_PER_LENGTH + ",");
+            double speedup = (double) total[TriangularLayout.ROW_MAJOR
+                    .ordinal()] / total[total.length - 1];
+            o.print(String.format(Locale.ROOT, "%.2f", speedup)
+                    + ",");
+            o.print("\n");
+            System.out.println("Lunghezza " + n + ": speedup copia trasposta "
+                    + String.format("%.2f", speedup));
+        }
+        o.close();
+    }
+
+    private static long time(String sequence, TriangularLayout layout,
+            boolean transposedShadow) {
+        NussinovFolder folder = new NussinovFolder(sequence);
+        folder.setMatrixLayout(layout);
+        folder.setTransposedShadow(transposedShadow);
+        long startTimeNano = System.nanoTime();
+        folder.fold();
+        return System.nanoTime() - startTimeNano;
+    }
+
+}
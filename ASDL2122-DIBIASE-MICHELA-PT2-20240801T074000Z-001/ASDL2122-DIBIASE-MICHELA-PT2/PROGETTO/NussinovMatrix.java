@@ -0,0 +1,199 @@
+package it.unicam.cs.asdl2122.pt2;
+
+/**
+ * Matrice di programmazione dinamica sugli intervalli {@code [i, j]} di una
+ * sequenza di nucleotidi, usata dal riempimento e dal traceback degli algoritmi
+ * di folding. Sono memorizzate solo le celle con {@code i <= j}; le celle con
+ * {@code j < i} rappresentano intervalli vuoti e valgono sempre 0 (in
+ * particolare la sentinella {@code (i, i - 1)} della ricorrenza di Nussinov).
+ *
+ * Scritture concorrenti su celle diverse sono ammesse, in modo che il
+ * riempimento possa essere parallelizzato; le letture concorrenti dopo il
+ * riempimento sono sempre sicure.
+ *
+ */
+abstract class NussinovMatrix {
+
+    /**
+     * Numero massimo di elementi di un array Java.
+     */
+    static final long MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    /**
+     * Contributo di una coppia di nucleotidi che non possono legarsi, scelto
+     * abbastanza negativo da non poter mai diventare un massimo.
+     */
+    static final int NO_PAIR = -(1 << 24);
+
+    private int size;
+
+    NussinovMatrix(int size) {
+        if (size < 0)
+            throw new IllegalArgumentException(
+                    "Dimensione della matrice negativa: " + size);
+        this.size = size;
+    }
+
+    /**
+     * Restituisce la dimensione n della matrice.
+     *
+     * @return la dimensione della matrice
+     */
+    final int size() {
+        return this.size;
+    }
+
+    /*
+     * Aggiorna la dimensione, per le matrici che possono crescere.
+     */
+    final void setSize(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Restituisce il valore della cella {@code (i, j)}.
+     *
+     * @param i
+     *              inizio dell'intervallo
+     * @param j
+     *              fine dell'intervallo
+     * @return il valore della cella, 0 se {@code j < i}
+     */
+    abstract int get(int i, int j);
+
+    /**
+     * Assegna il valore della cella {@code (i, j)}, con {@code i <= j}.
+     *
+     * @param i
+     *                  inizio dell'intervallo
+     * @param j
+     *                  fine dell'intervallo
+     * @param value
+     *                  il nuovo valore
+     */
+    abstract void set(int i, int j, int value);
+
+    /**
+     * Calcola il massimo, per {@code i <= k < j}, di
+     * {@code get(i, k - 1) + get(k + 1, j - 1) + bonus[k]}, cioè il miglior
+     * valore dell'intervallo {@code [i, j]} quando j è legato a un nucleotide
+     * k. Il vettore {@code bonus} contiene il contributo del legame
+     * {@code (k, j)} oppure {@code NO_PAIR} se il legame non è ammesso. Le
+     * sottoclassi possono ridefinire questo metodo per accedere direttamente
+     * alla propria memoria.
+     *
+     * @param i
+     *                  inizio dell'intervallo
+     * @param j
+     *                  fine dell'intervallo, {@code i < j}
+     * @param bonus
+     *                  contributo dei legami con j, indicizzato da k
+     * @return il valore massimo, negativo se nessun legame è ammesso
+     */
+    int maxSplit(int i, int j, int[] bonus) {
+        int max = NO_PAIR;
+        for (int k = i; k < j; k++) {
+            int val = get(i, k - 1) + get(k + 1, j - 1) + bonus[k];
+            if (val > max)
+                max = val;
+        }
+        return max;
+    }
+
+    /**
+     * Calcola le celle {@code (i, j)} della colonna j per i da {@code j - 1}
+     * fino a {@code low}, provando come partner di j solo le posizioni
+     * dell'elenco di {@code partners}. Richiede che le colonne precedenti
+     * siano già calcolate almeno dalla riga {@code low}.
+     *
+     * @param j
+     *                     la colonna da calcolare
+     * @param low
+     *                     la prima riga da calcolare
+     * @param partners
+     *                     i possibili partner di legame di ogni posizione
+     */
+    void fillColumn(int j, int low, PairingPartners partners) {
+        int[] candidates = partners.of(j);
+        // partner di j in [i, j - 1]: indici da first a last - 1
+        int last = partners.firstAtLeast(j, j);
+        int first = last;
+        for (int i = j - 1; i >= low; i--) {
+            int max = get(i, j - 1);
+            while (first > 0 && candidates[first - 1] >= i)
+                first--;
+            for (int c = first; c < last; c++) {
+                int k = candidates[c];
+                int val = get(i, k - 1) + get(k + 1, j - 1) + 1;
+                if (val > max)
+                    max = val;
+            }
+            set(i, j, max);
+        }
+    }
+
+    /**
+     * Crea una matrice compatta di dimensione data. Il tipo delle celle viene
+     * scelto in base al valore massimo che dovranno contenere: {@code char}
+     * quando basta, {@code int} altrimenti.
+     *
+     * @param size
+     *                     la dimensione della matrice
+     * @param layout
+     *                     la disposizione delle celle nell'array
+     * @param maxValue
+     *                     il massimo valore (non negativo) che verrà scritto
+     *                     nella matrice
+     * @return una nuova matrice con tutte le celle a 0
+     *
+     * @throws IllegalArgumentException
+     *                                      se la matrice è troppo grande per
+     *                                      essere memorizzata in un array
+     */
+    static NussinovMatrix create(int size, TriangularLayout layout,
+            int maxValue) {
+        if (maxValue <= Character.MAX_VALUE)
+            return new PackedCharTriangularMatrix(size, layout);
+        return new PackedIntTriangularMatrix(size, layout);
+    }
+
+    /**
+     * Crea una matrice compatta che mantiene anche una copia trasposta delle
+     * celle, in modo che in {@code maxSplit} sia la riga i sia la colonna
+     * {@code j - 1} siano lette da memoria contigua. Occupa il doppio della
+     * memoria di {@code create}. Se i valori non entrano in 16 bit viene
+     * creata una matrice senza copia trasposta.
+     *
+     * @param size
+     *                     la dimensione della matrice
+     * @param maxValue
+     *                     il massimo valore (non negativo) che verrà scritto
+     *                     nella matrice
+     * @return una nuova matrice con tutte le celle a 0
+     *
+     * @throws IllegalArgumentException
+     *                                      se la matrice è troppo grande per
+     *                                      essere memorizzata in un array
+     */
+    static NussinovMatrix createWithTransposedShadow(int size, int maxValue) {
+        if (maxValue <= Character.MAX_VALUE)
+            return new TransposedShadowMatrix(size);
+        return new PackedIntTriangularMatrix(size, TriangularLayout.ROW_MAJOR);
+    }
+
+    /*
+     * Converte le posizioni di inizio dei blocchi in indici di array,
+     * controllando che la matrice entri in un singolo array.
+     */
+    static int[] arrayStarts(int size, TriangularLayout layout) {
+        if (TriangularLayout.cellCount(size) > MAX_ARRAY_LENGTH)
+            throw new IllegalArgumentException("Sequenza troppo lunga ("
+                    + size + " nucleotidi) per una matrice in memoria");
+        long[] starts = layout.starts(size);
+        int[] result = new int[size];
+        for (int s = 0; s < size; s++)
+            result[s] = (int) starts[s];
+        return result;
+    }
+
+}
@@ -0,0 +1,96 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di Test per le matrici di programmazione dinamica
+ *
+ */
+class NussinovMatrixTest {
+
+    @Test
+    final void testCreateChoosesCellWidth() {
+        assertTrue(NussinovMatrix.create(10, TriangularLayout.ROW_MAJOR,
+                5) instanceof PackedCharTriangularMatrix);
+        assertTrue(NussinovMatrix.create(10, TriangularLayout.ROW_MAJOR,
+                Character.MAX_VALUE) instanceof PackedCharTriangularMatrix);
+        assertTrue(NussinovMatrix.create(10, TriangularLayout.ROW_MAJOR,
+                Character.MAX_VALUE + 1) instanceof PackedIntTriangularMatrix);
+    }
+
+    @Test
+    final void testGetAndSet() {
+        for (TriangularLayout layout : TriangularLayout.values())
+            for (int maxValue : new int[] { 100, Integer.MAX_VALUE }) {
+                NussinovMatrix m = NussinovMatrix.create(7, layout, maxValue);
+                assertEquals(7, m.size());
+                for (int i = 0; i < 7; i++)
+                    for (int j = i; j < 7; j++)
+                        m.set(i, j, 10 * i + j);
+                for (int i = 0; i < 7; i++) {
+                    // le celle sotto la diagonale valgono zero
+                    assertEquals(0, m.get(i, i - 1));
+                    for (int j = i; j < 7; j++)
+                        assertEquals(10 * i + j, m.get(i, j));
+                }
+            }
+    }
+
+    @Test
+    final void testMappedGetAndSet() {
+        for (TriangularLayout layout : TriangularLayout.values())
+            for (int maxValue : new int[] { 100, Integer.MAX_VALUE }) {
+                NussinovMatrix m = new MappedTriangularMatrix(7, layout, maxValue, null);
+                for (int i = 0; i < 7; i++)
+                    for (int j = i; j < 7; j++)
+                        m.set(i, j, maxValue - 10 * i - j);
+                for (int i = 0; i < 7; i++) {
+                    assertEquals(0, m.get(i, i - 1));
+                    for (int j = i; j < 7; j++)
+                        assertEquals(maxValue - 10 * i - j, m.get(i, j));
+                }
+            }
+        assertEquals(2 * 28, MappedTriangularMatrix.bytes(7, 100));
+        assertEquals(4 * 28, MappedTriangularMatrix.bytes(7, Integer.MAX_VALUE));
+    }
+
+    @Test
+    final void testMappedFileDeleted() throws IOException {
+        File directory = Files.createTempDirectory("nussinov").toFile();
+        NussinovMatrix m = new MappedTriangularMatrix(7, TriangularLayout.ROW_MAJOR,
+                100, directory);
+        m.set(2, 5, 42);
+        // il file viene cancellato subito, la mappatura resta valida
+        assertEquals(0, directory.list().length);
+        assertEquals(42, m.get(2, 5));
+        assertTrue(directory.delete());
+    }
+
+    @Test
+    final void testTransposedShadowMaxSplit() {
+        int n = 12;
+        NussinovMatrix plain = NussinovMatrix.create(n, TriangularLayout.ROW_MAJOR, n);
+        NussinovMatrix shadowed = NussinovMatrix.createWithTransposedShadow(n, n);
+        assertTrue(shadowed instanceof TransposedShadowMatrix);
+        int[] bonus = new int[n];
+        for (int i = 0; i < n; i++) {
+            bonus[i] = i % 3 == 0 ? NussinovMatrix.NO_PAIR : 1;
+            for (int j = i; j < n; j++) {
+                plain.set(i, j, (i * 7 + j * 3) % 5);
+                shadowed.set(i, j, (i * 7 + j * 3) % 5);
+            }
+        }
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                assertEquals(plain.get(i, j), shadowed.get(i, j));
+                assertEquals(plain.maxSplit(i, j, bonus), shadowed.maxSplit(i, j, bonus));
+            }
+    }
+
+}
@@ -0,0 +1,31 @@
+package it.unicam.cs.asdl2122.pt2;
+
+/**
+ * Matrice triangolare compatta con celle di tipo {@code char}, cioè interi
+ * senza segno a 16 bit. Dimezza la memoria e la banda richieste rispetto alle
+ * celle {@code int} e può contenere valori fino a
+ * {@code Character.MAX_VALUE}.
+ *
+ */
+class PackedCharTriangularMatrix extends PackedTriangularMatrix {
+
+    private final char[] cells;
+
+    PackedCharTriangularMatrix(int size, TriangularLayout layout) {
+        super(size, layout);
+        this.cells = new char[cellCount()];
+    }
+
+    @Override
+    int get(int i, int j) {
+        if (j < i)
+            return 0;
+        return cells[index(i, j)];
+    }
+
+    @Override
+    void set(int i, int j, int value) {
+        cells[index(i, j)] = (char) value;
+    }
+
+}
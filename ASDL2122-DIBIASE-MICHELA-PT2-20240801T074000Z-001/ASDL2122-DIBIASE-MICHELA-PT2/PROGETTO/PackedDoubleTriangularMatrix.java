@@ -0,0 +1,55 @@
+package it.unicam.cs.asdl2122.pt2;
+
+/**
+ * Matrice triangolare superiore di {@code double} memorizzata in un unico array
+ * secondo una {@code TriangularLayout}, come le matrici compatte di
+ * {@code NussinovMatrix}, per le ricorrenze che sommano pesi invece di contare
+ * legami. Sono memorizzate solo le celle con {@code i <= j}; il valore degli
+ * intervalli vuoti dipende dalla ricorrenza ed è lasciato al chiamante.
+ *
+ */
+final class PackedDoubleTriangularMatrix {
+
+    private final int[] starts;
+
+    private final boolean rowMajor;
+
+    private final double[] cells;
+
+    /**
+     * Crea una matrice con tutte le celle a 0.
+     *
+     * @param size
+     *                   la dimensione della matrice
+     * @param layout
+     *                   la disposizione delle celle nell'array
+     *
+     * @throws IllegalArgumentException
+     *                                      se la matrice è troppo grande per
+     *                                      essere memorizzata in un array
+     */
+    PackedDoubleTriangularMatrix(int size, TriangularLayout layout) {
+        this.starts = NussinovMatrix.arrayStarts(size, layout);
+        this.rowMajor = layout == TriangularLayout.ROW_MAJOR;
+        this.cells = new double[(int) TriangularLayout.cellCount(size)];
+    }
+
+    /**
+     * Restituisce il valore della cella {@code (i, j)}, con {@code i <= j}.
+     */
+    double get(int i, int j) {
+        return cells[index(i, j)];
+    }
+
+    /**
+     * Assegna il valore della cella {@code (i, j)}, con {@code i <= j}.
+     */
+    void set(int i, int j, double value) {
+        cells[index(i, j)] = value;
+    }
+
+    private int index(int i, int j) {
+        return rowMajor ? starts[i] + (j - i) : starts[j - i] + i;
+    }
+
+}
@@ -0,0 +1,29 @@
+package it.unicam.cs.asdl2122.pt2;
+
+/**
+ * Matrice triangolare compatta con celle di tipo {@code int}, usata quando i
+ * valori non entrano in 16 bit.
+ *
+ */
+class PackedIntTriangularMatrix extends PackedTriangularMatrix {
+
+    private final int[] cells;
+
+    PackedIntTriangularMatrix(int size, TriangularLayout layout) {
+        super(size, layout);
+        this.cells = new int[cellCount()];
+    }
+
+    @Override
+    int get(int i, int j) {
+        if (j < i)
+            return 0;
+        return cells[index(i, j)];
+    }
+
+    @Override
+    void set(int i, int j, int value) {
+        cells[index(i, j)] = value;
+    }
+
+}
@@ -0,0 +1,39 @@
+package it.unicam.cs.asdl2122.pt2;
+
+/**
+ * Matrice triangolare superiore memorizzata in un unico array secondo una
+ * {@code TriangularLayout}. Occupa circa metà della memoria di una matrice
+ * {@code n x n} e non alloca un oggetto per ogni riga. Le sottoclassi
+ * stabiliscono il tipo primitivo delle celle.
+ *
+ */
+abstract class PackedTriangularMatrix extends NussinovMatrix {
+
+    private final int[] starts;
+
+    private final boolean rowMajor;
+
+    PackedTriangularMatrix(int size, TriangularLayout layout) {
+        super(size);
+        this.starts = arrayStarts(size, layout);
+        this.rowMajor = layout == TriangularLayout.ROW_MAJOR;
+    }
+
+    /**
+     * Restituisce il numero di celle da allocare nell'array.
+     *
+     * @return il numero di celle memorizzate
+     */
+    final int cellCount() {
+        return (int) TriangularLayout.cellCount(size());
+    }
+
+    /**
+     * Restituisce la posizione nell'array della cella {@code (i, j)}, con
+     * {@code i <= j}.
+     */
+    final int index(int i, int j) {
+        return rowMajor ? starts[i] + (j - i) : starts[j - i] + i;
+    }
+
+}
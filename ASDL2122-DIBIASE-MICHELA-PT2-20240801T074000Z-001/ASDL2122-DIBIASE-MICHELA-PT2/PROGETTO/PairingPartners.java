@@ -0,0 +1,186 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.util.Arrays;
+
+/**
+ * Liste precalcolate dei possibili partner di legame di ogni nucleotide di una
+ * sequenza. Per ogni posizione j viene fornito l'elenco crescente delle
+ * posizioni k della sequenza che possono legarsi con j secondo uno schema di
+ * appaiamento (in mancanza di indicazioni le coppie GC, AU e GU).
+ * Le posizioni con la stessa base condividono lo stesso elenco, quindi la
+ * memoria occupata è O(n).
+ *
+ * Eventuali vincoli di folding sono compilati nelle liste: le posizioni che
+ * devono restare non legate non compaiono in nessun elenco e non hanno
+ * partner, e solo le posizioni coinvolte in un legame vietato hanno un elenco
+ * proprio. La lunghezza minima delle forcine è applicata da
+ * {@code leftEnd}, che limita i partner a sinistra di j.
+ *
+ */
+final class PairingPartners {
+
+    private static final int[] NONE = new int[0];
+
+    private final int[][] partners;
+
+    private final byte[] codes;
+
+    private final PairingScheme scheme;
+
+    private final int minHairpin;
+
+    private final boolean[] mustPair;
+
+    /**
+     * Costruisce le liste dei partner per una sequenza codificata.
+     *
+     * @param codes
+     *                  i codici dei nucleotidi della sequenza
+     */
+    PairingPartners(byte[] codes) {
+        this(codes, PairingScheme.WOBBLE, null);
+    }
+
+    /**
+     * Costruisce le liste dei partner per una sequenza codificata, secondo uno
+     * schema di appaiamento e tenendo conto dei vincoli di folding.
+     *
+     * @param codes
+     *                        i codici dei nucleotidi della sequenza
+     * @param scheme
+     *                        lo schema che stabilisce le coppie ammesse
+     * @param constraints
+     *                        i vincoli, della stessa lunghezza della
+     *                        sequenza, oppure null se non ci sono vincoli
+     */
+    PairingPartners(byte[] codes, PairingScheme scheme,
+            FoldingConstraints constraints) {
+        this.codes = codes;
+        this.scheme = scheme;
+        boolean[] unpaired = new boolean[codes.length];
+        this.mustPair = new boolean[codes.length];
+        if (constraints != null)
+            for (int k = 0; k < codes.length; k++) {
+                unpaired[k] = constraints.isForcedUnpaired(k + 1);
+                mustPair[k] = constraints.isForcedPaired(k + 1);
+            }
+        this.minHairpin = constraints == null ? 0 : constraints.getMinHairpin();
+        int[][] byBase = new int[Nucleotides.COUNT][];
+        for (byte b = 0; b < Nucleotides.COUNT; b++) {
+            int[] positions = new int[codes.length];
+            int count = 0;
+            for (int k = 0; k < codes.length; k++)
+                if (!unpaired[k] && scheme.canPair(codes[k], b))
+                    positions[count++] = k;
+            byBase[b] = Arrays.copyOf(positions, count);
+        }
+        this.partners = new int[codes.length][];
+        for (int j = 0; j < codes.length; j++)
+            partners[j] = unpaired[j] ? NONE : byBase[codes[j]];
+        if (constraints != null)
+            for (WeakBond bond : constraints.getForbiddenBonds()) {
+                remove(bond.getI() - 1, bond.getJ() - 1);
+                remove(bond.getJ() - 1, bond.getI() - 1);
+            }
+    }
+
+    /*
+     * Toglie k dall'elenco di j, copiandolo se è ancora condiviso.
+     */
+    private void remove(int j, int k) {
+        int[] list = partners[j];
+        int c = firstAtLeast(j, k);
+        if (c == list.length || list[c] != k)
+            return;
+        int[] copy = new int[list.length - 1];
+        System.arraycopy(list, 0, copy, 0, c);
+        System.arraycopy(list, c + 1, copy, c, copy.length - c);
+        partners[j] = copy;
+    }
+
+    /**
+     * Restituisce l'elenco crescente delle posizioni che possono legarsi con
+     * la posizione j, su tutta la sequenza. L'array non deve essere
+     * modificato.
+     *
+     * @param j
+     *              la posizione
+     * @return le posizioni dei possibili partner di j
+     */
+    int[] of(int j) {
+        return partners[j];
+    }
+
+    /**
+     * Restituisce l'indice nell'elenco dei partner di j della prima posizione
+     * maggiore o uguale a from.
+     *
+     * @param j
+     *                 la posizione
+     * @param from
+     *                 la minima posizione cercata
+     * @return l'indice del primo partner {@code >= from}, oppure la lunghezza
+     *         dell'elenco se non ce ne sono
+     */
+    int firstAtLeast(int j, int from) {
+        int[] list = partners[j];
+        int low = 0;
+        int high = list.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (list[middle] < from)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Restituisce l'indice nell'elenco dei partner di j del primo partner che
+     * non può legarsi a j come nucleotide sinistro, per la lunghezza minima
+     * delle forcine: i partner a sinistra di j ammessi sono quelli con indice
+     * fra {@code firstAtLeast(j, i)} e {@code leftEnd(j) - 1}.
+     *
+     * @param j
+     *              la posizione
+     * @return l'indice del primo partner {@code >= j - minHairpin}
+     */
+    int leftEnd(int j) {
+        return firstAtLeast(j, j - minHairpin);
+    }
+
+    /**
+     * Restituisce il peso del legame fra le posizioni k e j.
+     *
+     * @param k
+     *              la prima posizione
+     * @param j
+     *              la seconda posizione
+     * @return il peso del legame, 0 se non possono legarsi
+     */
+    int weight(int k, int j) {
+        return scheme.weight(codes[k], codes[j]);
+    }
+
+    /**
+     * Restituisce lo schema di appaiamento delle liste.
+     *
+     * @return lo schema di appaiamento
+     */
+    PairingScheme getScheme() {
+        return scheme;
+    }
+
+    /**
+     * Determina se i vincoli impongono che la posizione j sia legata.
+     *
+     * @param j
+     *              la posizione
+     * @return true se j deve essere legata
+     */
+    boolean mustPair(int j) {
+        return mustPair[j];
+    }
+
+}
@@ -0,0 +1,127 @@
+package it.unicam.cs.asdl2122.pt2;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Schema di appaiamento: stabilisce quali coppie di nucleotidi possono formare
+ * un legame debole e quanto vale ogni legame. Lo schema è compilato una sola
+ * volta in una tabella di 16 interi indicizzata dai codici dei due nucleotidi,
+ * quindi pesare un legame costa quanto decidere se è ammesso. Gli schemi sono
+ * immutabili e possono essere condivisi fra thread.
+ *
+ */
+public final class PairingScheme {
+
+    /**
+     * Solo le coppie canoniche di Watson-Crick GC e AU, con peso 1.
+     */
+    public static final PairingScheme CANONICAL = weighted(1, 1, 0);
+
+    /**
+     * Le coppie canoniche GC e AU e la coppia wobble GU, con peso 1: lo schema
+     * usato in assenza di indicazioni.
+     */
+    public static final PairingScheme WOBBLE = weighted(1, 1, 1);
+
+    /**
+     * Le coppie GC, AU e GU pesate come il numero di legami a idrogeno della
+     * coppia: 3, 2 e 1.
+     */
+    public static final PairingScheme HYDROGEN_BONDS = weighted(3, 2, 1);
+
+    /*
+     * weights[(x << 2) | y] è il peso del legame fra i nucleotidi di codice x
+     * e y, 0 se non possono legarsi.
+     */
+    private final int[] weights;
+
+    private final int maxWeight;
+
+    private PairingScheme(int gc, int au, int gu) {
+        this.weights = new int[Nucleotides.COUNT * Nucleotides.COUNT];
+        set(Nucleotides.G, Nucleotides.C, gc);
+        set(Nucleotides.A, Nucleotides.U, au);
+        set(Nucleotides.G, Nucleotides.U, gu);
+        this.maxWeight = Math.max(gc, Math.max(au, gu));
+    }
+
+    private void set(byte x, byte y, int weight) {
+        weights[(x << 2) | y] = weight;
+        weights[(y << 2) | x] = weight;
+    }
+
+    /**
+     * Crea uno schema con un peso per ogni tipo di coppia, in entrambi gli
+     * ordini. Una coppia con peso 0 non può formare un legame.
+     *
+     * @param gc
+     *               il peso delle coppie GC
+     * @param au
+     *               il peso delle coppie AU
+     * @param gu
+     *               il peso delle coppie GU
+     * @return lo schema compilato
+     *
+     * @throws IllegalArgumentException
+     *                                      se un peso è negativo o se nessuna
+     *                                      coppia è ammessa
+     */
+    public static PairingScheme weighted(int gc, int au, int gu) {
+        if (gc < 0 || au < 0 || gu < 0)
+            throw new IllegalArgumentException("I pesi delle coppie non possono essere negativi");
+        if (gc == 0 && au == 0 && gu == 0)
+            throw new IllegalArgumentException("Lo schema deve ammettere almeno una coppia");
+        // un singolo peso resta lontano da NO_PAIR = -2^24; il peso totale,
+        // che dipende dalla lunghezza della sequenza, è controllato da
+        // NussinovFolder prima del riempimento
+        if (Math.max(gc, Math.max(au, gu)) > (1 << 20))
+            throw new IllegalArgumentException("Peso di una coppia troppo grande");
+        return new PairingScheme(gc, au, gu);
+    }
+
+    /**
+     * Restituisce il peso del legame fra due nucleotidi.
+     *
+     * @param x
+     *              il codice del primo nucleotide
+     * @param y
+     *              il codice del secondo nucleotide
+     * @return il peso del legame, 0 se i nucleotidi non possono legarsi
+     */
+    public int weight(byte x, byte y) {
+        return weights[(x << 2) | y];
+    }
+
+    /**
+     * Determina se due nucleotidi possono formare un legame debole.
+     *
+     * @param x
+     *              il codice del primo nucleotide
+     * @param y
+     *              il codice del secondo nucleotide
+     * @return true se la coppia ha un peso positivo
+     */
+    public boolean canPair(byte x, byte y) {
+        return weights[(x << 2) | y] > 0;
+    }
+
+    /**
+     * Restituisce il massimo peso di un legame.
+     *
+     * @return il massimo peso di un legame
+     */
+    public int getMaxWeight() {
+        return this.maxWeight;
+    }
+
+    /**
+     * Determina se tutti i legami ammessi hanno peso 1, cioè se il valore di
+     * una struttura è il suo numero di legami.
+     *
+     * @return true se tutti i legami ammessi pesano 1
+     */
+    public boolean isUnweighted() {
+        return maxWeight == 1;
+    }
+
+}
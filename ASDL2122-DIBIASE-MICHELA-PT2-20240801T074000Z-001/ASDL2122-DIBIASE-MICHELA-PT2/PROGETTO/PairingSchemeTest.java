@@ -0,0 +1,53 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di Test per la classe PairingScheme
+ *
+ */
+class PairingSchemeTest {
+
+    @Test
+    final void testPredefinedSchemes() {
+        byte a = Nucleotides.A, c = Nucleotides.C, g = Nucleotides.G, u = Nucleotides.U;
+        assertTrue(PairingScheme.CANONICAL.canPair(g, c));
+        assertTrue(PairingScheme.CANONICAL.canPair(u, a));
+        assertFalse(PairingScheme.CANONICAL.canPair(g, u));
+        assertTrue(PairingScheme.WOBBLE.canPair(u, g));
+        assertFalse(PairingScheme.WOBBLE.canPair(a, c));
+        assertFalse(PairingScheme.WOBBLE.canPair(g, g));
+        assertTrue(PairingScheme.WOBBLE.isUnweighted());
+        assertEquals(3, PairingScheme.HYDROGEN_BONDS.weight(c, g));
+        assertEquals(2, PairingScheme.HYDROGEN_BONDS.weight(a, u));
+        assertEquals(1, PairingScheme.HYDROGEN_BONDS.weight(g, u));
+        assertEquals(0, PairingScheme.HYDROGEN_BONDS.weight(a, g));
+        assertEquals(3, PairingScheme.HYDROGEN_BONDS.getMaxWeight());
+        assertFalse(PairingScheme.HYDROGEN_BONDS.isUnweighted());
+    }
+
+    @Test
+    final void testWeighted() {
+        assertThrows(IllegalArgumentException.class, () -> PairingScheme.weighted(-1, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> PairingScheme.weighted(0, 0, 0));
+        PairingScheme scheme = PairingScheme.weighted(0, 4, 0);
+        assertFalse(scheme.canPair(Nucleotides.G, Nucleotides.C));
+        assertEquals(4, scheme.weight(Nucleotides.U, Nucleotides.A));
+    }
+
+    @Test
+    final void testSecondaryStructureValidation() {
+        SecondaryStructure canonical = new SecondaryStructure("GUAU", PairingScheme.CANONICAL);
+        assertThrows(IllegalArgumentException.class, () -> canonical.addBond(new WeakBond(1, 2)));
+        assertTrue(canonical.addBond(new WeakBond(3, 4)));
+        SecondaryStructure weighted = new SecondaryStructure("GCAU", PairingScheme.HYDROGEN_BONDS);
+        weighted.addBond(new WeakBond(1, 2));
+        weighted.addBond(new WeakBond(3, 4));
+        assertEquals(2, weighted.getCardinality());
+        assertEquals(5, weighted.getScore());
+        assertThrows(NullPointerException.class, () -> new SecondaryStructure("GCAU", (PairingScheme) null));
+    }
+
+}
@@ -0,0 +1,231 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.util.stream.IntStream;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Folding dei mutanti puntiformi di una sequenza già ripiegata con
+ * {@code NussinovFolder}. Sostituire il nucleotide in posizione p cambia solo
+ * le celle {@code N(i, j)} degli intervalli che contengono p: queste vengono
+ * ricalcolate, colonna per colonna, in un array di lavoro, mentre tutte le
+ * altre sono lette dalla matrice della sequenza originale, che non viene mai
+ * modificata. Una mutazione costa {@code O(p * (n - p) * n)} invece di
+ * {@code O(n^3)}: il risparmio è massimo vicino alle estremità della sequenza.
+ * La matrice originale è quella dell'ultimo {@code fold()} eseguito prima
+ * della costruzione: i calcoli successivi del solver originale non la
+ * cambiano. I mutanti usano lo schema di appaiamento di quel folding: con uno
+ * schema pesato i punteggi sono pesi totali, mentre le cardinalità restano
+ * numeri di legami.
+ *
+ * Tutti i metodi possono essere chiamati in parallelo.
+ *
+ */
+public class PointMutationFolder {
+
+    private final String sequence;
+
+    private final byte[] codes;
+
+    /*
+     * Matrice della sequenza originale al momento della costruzione: un
+     * fold() successivo del solver originale non la modifica.
+     */
+    private final NussinovMatrix matrix;
+
+    /*
+     * Schema di appaiamento con cui è stata calcolata la matrice originale.
+     */
+    private final PairingScheme scheme;
+
+    /*
+     * Numero di legami della struttura ottima originale.
+     */
+    private final int cardinality;
+
+    /*
+     * Array di lavoro di ogni thread, riallocato solo quando non basta.
+     */
+    private final ThreadLocal<int[]> scratch = ThreadLocal.withInitial(() -> new int[0]);
+
+    /**
+     * Costruisce il solver dei mutanti di una sequenza.
+     *
+     * @param folder
+     *                   il solver della sequenza originale, su cui è già
+     *                   stato eseguito il folding
+     *
+     * @throws NullPointerException
+     *                                   se il solver è nullo
+     * @throws IllegalStateException
+     *                                   se il folding della sequenza
+     *                                   originale non è stato eseguito
+     * @throws IllegalArgumentException
+     *                                   se il solver ha dei vincoli, che i
+     *                                   mutanti non applicano
+     */
+    public PointMutationFolder(NussinovFolder folder) {
+        if (folder == null)
+            throw new NullPointerException(
+                    "Tentativo di costruire un solutore dei mutanti a partire da un solutore nullo");
+        if (!folder.isFolded())
+            throw new IllegalStateException(
+                    "Il folding della sequenza originale non è stato eseguito");
+        if (folder.getConstraints() != null)
+            throw new IllegalArgumentException(
+                    "Il folding dei mutanti non supporta i vincoli");
+        this.sequence = folder.getSequence();
+        this.codes = Nucleotides.encode(sequence);
+        this.matrix = folder.getMatrix();
+        SecondaryStructure structure = folder.getOneOptimalStructure();
+        this.scheme = structure.getPairingScheme();
+        this.cardinality = structure.getCardinality();
+    }
+
+    /**
+     * Restituisce la sequenza originale.
+     *
+     * @return la sequenza originale
+     */
+    public String getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Calcola il numero di legami deboli di una struttura secondaria ottima
+     * della sequenza in cui il nucleotide in posizione {@code position} è
+     * sostituito da {@code base}. Con uno schema pesato la matrice contiene
+     * pesi totali e il numero di legami è quello della struttura trovata dal
+     * traceback.
+     *
+     * @param position
+     *                     la posizione della mutazione, a partire da 1
+     * @param base
+     *                     il nuovo nucleotide
+     * @return il numero di legami deboli di una struttura ottima del mutante
+     *
+     * @throws IllegalArgumentException
+     *                                      se la posizione è fuori dalla
+     *                                      sequenza o il nucleotide è
+     *                                      sconosciuto
+     */
+    public int computeOptimalCardinality(int position, char base) {
+        byte[] mutant = mutate(position, base);
+        NussinovMatrix mutantMatrix = fill(position - 1, mutant);
+        if (scheme.isUnweighted())
+            return mutantMatrix.get(0, codes.length - 1);
+        return traceback(mutantMatrix, mutant).length / 2;
+    }
+
+    /**
+     * Calcola il peso totale massimo, secondo lo schema di appaiamento del
+     * folding originale, di una struttura secondaria della sequenza in cui il
+     * nucleotide in posizione {@code position} è sostituito da {@code base}.
+     * Legge solo la matrice, senza traceback.
+     *
+     * @param position
+     *                     la posizione della mutazione, a partire da 1
+     * @param base
+     *                     il nuovo nucleotide
+     * @return il peso totale massimo del mutante
+     *
+     * @throws IllegalArgumentException
+     *                                      se la posizione è fuori dalla
+     *                                      sequenza o il nucleotide è
+     *                                      sconosciuto
+     */
+    public int computeOptimalScore(int position, char base) {
+        byte[] mutant = mutate(position, base);
+        return fill(position - 1, mutant).get(0, codes.length - 1);
+    }
+
+    /**
+     * Calcola una struttura secondaria ottima della sequenza in cui il
+     * nucleotide in posizione {@code position} è sostituito da {@code base}.
+     *
+     * @param position
+     *                     la posizione della mutazione, a partire da 1
+     * @param base
+     *                     il nuovo nucleotide
+     * @return una struttura ottima del mutante
+     *
+     * @throws IllegalArgumentException
+     *                                      se la posizione è fuori dalla
+     *                                      sequenza o il nucleotide è
+     *                                      sconosciuto
+     */
+    public SecondaryStructure getOneOptimalStructure(int position, char base) {
+        byte[] mutant = mutate(position, base);
+        NussinovMatrix mutantMatrix = fill(position - 1, mutant);
+        int[] pairs = traceback(mutantMatrix, mutant);
+        StringBuilder mutantSequence = new StringBuilder(sequence);
+        mutantSequence.setCharAt(position - 1, Nucleotides.base(mutant[position - 1]));
+        return NussinovFolder.buildStructure(mutantSequence.toString(), pairs, scheme);
+    }
+
+    /**
+     * Calcola in parallelo il numero di legami deboli di una struttura ottima
+     * di tutti i mutanti puntiformi della sequenza. L'elemento
+     * {@code [p - 1][Nucleotides.code(b)]} è il risultato della sostituzione
+     * con b del nucleotide in posizione p; per il nucleotide originale è il
+     * risultato della sequenza originale.
+     *
+     * @return i numeri di legami delle strutture ottime di tutti i mutanti
+     */
+    public int[][] computeAllOptimalCardinalities() {
+        int n = codes.length;
+        int[][] cardinalities = new int[n][Nucleotides.COUNT];
+        IntStream.range(0, n).parallel().forEach(p -> {
+            for (byte b = 0; b < Nucleotides.COUNT; b++)
+                cardinalities[p][b] = b == codes[p] ? cardinality
+                        : computeOptimalCardinality(p + 1, Nucleotides.base(b));
+        });
+        return cardinalities;
+    }
+
+    private int[] traceback(NussinovMatrix mutantMatrix, byte[] mutant) {
+        return NussinovFolder.traceback(mutantMatrix,
+                new PairingPartners(mutant, scheme, null), 0, codes.length - 1);
+    }
+
+    private byte[] mutate(int position, char base) {
+        if (position < 1 || position > codes.length)
+            throw new IllegalArgumentException("Posizione " + position
+                    + " fuori dalla sequenza di " + codes.length + " nucleotidi");
+        byte[] mutant = codes.clone();
+        mutant[position - 1] = Nucleotides.code(Character.toUpperCase(base));
+        return mutant;
+    }
+
+    /*
+     * Ricalcola le celle (i, j) con i <= p <= j per colonne crescenti; le
+     * celle lette fuori da questa zona sono quelle della sequenza originale.
+     */
+    private NussinovMatrix fill(int p, byte[] mutant) {
+        int n = mutant.length;
+        long cells = MutantOverlayMatrix.cells(n, p);
+        if (cells > NussinovMatrix.MAX_ARRAY_LENGTH)
+            throw new IllegalArgumentException("Sequenza troppo lunga ("
+                    + n + " nucleotidi) per ricalcolare la mutazione in memoria");
+        int[] work = scratch.get();
+        if (work.length < cells) {
+            work = new int[(int) cells];
+            scratch.set(work);
+        }
+        NussinovMatrix overlay = new MutantOverlayMatrix(matrix, p, work);
+        int[][] byBase = new int[Nucleotides.COUNT][n];
+        for (byte b = 0; b < Nucleotides.COUNT; b++)
+            for (int k = 0; k < n; k++)
+                byBase[b][k] = scheme.canPair(mutant[k], b)
+                        ? scheme.weight(mutant[k], b) : NussinovMatrix.NO_PAIR;
+        // l'array di lavoro può contenere i valori di una mutazione precedente
+        overlay.set(p, p, 0);
+        for (int j = p; j < n; j++) {
+            int[] bonus = byBase[mutant[j]];
+            for (int i = Math.min(p, j - 1); i >= 0; i--)
+                overlay.set(i, j, Math.max(overlay.get(i, j - 1), overlay.maxSplit(i, j, bonus)));
+        }
+        return overlay;
+    }
+
+}
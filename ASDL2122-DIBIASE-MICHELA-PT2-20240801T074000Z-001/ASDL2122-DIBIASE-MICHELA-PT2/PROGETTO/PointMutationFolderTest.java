@@ -0,0 +1,110 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di Test per la classe PointMutationFolder
+ *
+ */
+class PointMutationFolderTest {
+
+    @Test
+    final void testMutantsMatchNussinovFolder() {
+        Random random = new Random(100);
+        for (int length : new int[] { 1, 2, 9, 60 }) {
+            String sequence = RandomSequences.generate(random, length);
+            NussinovFolder original = new NussinovFolder(sequence);
+            original.fold();
+            PointMutationFolder mutations = new PointMutationFolder(original);
+            int[][] all = mutations.computeAllOptimalCardinalities();
+            for (int p = 1; p <= length; p++)
+                for (char base : "ACGU".toCharArray()) {
+                    StringBuilder mutant = new StringBuilder(sequence);
+                    mutant.setCharAt(p - 1, base);
+                    NussinovFolder folder = new NussinovFolder(mutant.toString());
+                    folder.fold();
+                    int expected = folder.getOneOptimalStructure().getCardinality();
+                    assertEquals(expected, mutations.computeOptimalCardinality(p, base));
+                    assertEquals(expected, all[p - 1][Nucleotides.code(base)]);
+                    assertEquals(expected, mutations.computeOptimalScore(p, base));
+                    SecondaryStructure structure = mutations.getOneOptimalStructure(p, base);
+                    assertEquals(mutant.toString(), structure.getPrimarySequence());
+                    assertEquals(expected, structure.getCardinality());
+                    assertFalse(structure.isPseudoknotted());
+                }
+            // la matrice originale non cambia
+            assertEquals(original.getOneOptimalStructure().getCardinality(),
+                    original.getMatrix().get(0, length - 1));
+        }
+    }
+
+    @Test
+    final void testSnapshotOfOriginalMatrix() {
+        String sequence = RandomSequences.generate(new Random(101), 40);
+        NussinovFolder original = new NussinovFolder(sequence);
+        original.fold();
+        PointMutationFolder mutations = new PointMutationFolder(original);
+        int[][] before = mutations.computeAllOptimalCardinalities();
+        // nuovi calcoli del solver originale non toccano la matrice letta
+        // dal solver dei mutanti
+        original.setMatrixLayout(TriangularLayout.DIAGONAL_MAJOR);
+        original.fold();
+        original.computeOptimalCardinality();
+        assertArrayEquals(before, mutations.computeAllOptimalCardinalities());
+    }
+
+    @Test
+    final void testWeightedScheme() {
+        Random random = new Random(24);
+        for (PairingScheme scheme : new PairingScheme[] { PairingScheme.HYDROGEN_BONDS,
+                PairingScheme.CANONICAL }) {
+            String sequence = RandomSequences.generate(random, 30);
+            NussinovFolder original = new NussinovFolder(sequence);
+            original.setPairingScheme(scheme);
+            original.fold();
+            PointMutationFolder mutations = new PointMutationFolder(original);
+            int[][] all = mutations.computeAllOptimalCardinalities();
+            for (int p = 1; p <= sequence.length(); p++)
+                for (char base : "ACGU".toCharArray()) {
+                    StringBuilder mutant = new StringBuilder(sequence);
+                    mutant.setCharAt(p - 1, base);
+                    NussinovFolder folder = new NussinovFolder(mutant.toString());
+                    folder.setPairingScheme(scheme);
+                    folder.fold();
+                    SecondaryStructure expected = folder.getOneOptimalStructure();
+                    // il punteggio è il peso totale, la cardinalità il numero
+                    // di legami della struttura ottima
+                    assertEquals(expected.getScore(), mutations.computeOptimalScore(p, base));
+                    assertEquals(expected.getCardinality(),
+                            mutations.computeOptimalCardinality(p, base));
+                    assertEquals(expected.getCardinality(), all[p - 1][Nucleotides.code(base)]);
+                    SecondaryStructure structure = mutations.getOneOptimalStructure(p, base);
+                    assertSame(scheme, structure.getPairingScheme());
+                    assertEquals(expected.getScore(), structure.getScore());
+                }
+        }
+    }
+
+    @Test
+    final void testInvalidArguments() {
+        NussinovFolder original = new NussinovFolder("GCACGACG");
+        assertThrows(IllegalStateException.class, () -> new PointMutationFolder(original));
+        original.fold();
+        PointMutationFolder mutations = new PointMutationFolder(original);
+        assertThrows(IllegalArgumentException.class,
+                () -> mutations.computeOptimalCardinality(0, 'A'));
+        assertThrows(IllegalArgumentException.class,
+                () -> mutations.computeOptimalCardinality(9, 'A'));
+        assertThrows(IllegalArgumentException.class,
+                () -> mutations.getOneOptimalStructure(3, 'T'));
+        NussinovFolder mutant = new NussinovFolder("GCGCGACG");
+        mutant.fold();
+        assertEquals(mutant.getOneOptimalStructure().getCardinality(),
+                mutations.computeOptimalCardinality(3, 'g'));
+    }
+
+}
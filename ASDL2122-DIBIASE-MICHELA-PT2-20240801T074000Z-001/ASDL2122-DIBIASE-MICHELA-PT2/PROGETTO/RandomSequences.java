@@ -0,0 +1,33 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.util.Random;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Generatore di sequenze casuali di nucleotidi, condiviso dai test e dai
+ * benchmark. Ogni nucleotide è scelto in modo uniforme fra A, G, U e C.
+ *
+ */
+final class RandomSequences {
+
+    private RandomSequences() {
+    }
+
+    /**
+     * Genera una sequenza casuale di nucleotidi.
+     *
+     * @param random
+     *                   il generatore di numeri casuali
+     * @param length
+     *                   la lunghezza della sequenza
+     * @return la sequenza generata
+     */
+    static String generate(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+            sb.append("AGUC".charAt(random.nextInt(4)));
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,52 @@
+package it.unicam.cs.asdl2122.pt2;
+
+/**
+ * Matrice per una finestra di {@code window} nucleotidi che scorre lungo una
+ * sequenza. Gli indici sono le posizioni assolute nella sequenza e la cella
+ * {@code (i, j)} è memorizzata in {@code [i mod window][j mod window]}: finché
+ * i e j appartengono alla finestra corrente due celle non condividono mai la
+ * stessa posizione, e le celle delle righe uscite dalla finestra vengono
+ * semplicemente sovrascritte da quelle delle nuove colonne. La memoria è
+ * {@code window^2} celle a 16 bit, indipendente dalla lunghezza della
+ * sequenza.
+ *
+ */
+class RingTriangularMatrix extends NussinovMatrix {
+
+    private final char[] cells;
+
+    /**
+     * Crea una matrice circolare con tutte le celle a 0.
+     *
+     * @param window
+     *                   la lunghezza della finestra
+     *
+     * @throws IllegalArgumentException
+     *                                      se la finestra è troppo grande
+     */
+    RingTriangularMatrix(int window) {
+        super(window);
+        if ((long) window * window > MAX_ARRAY_LENGTH)
+            throw new IllegalArgumentException("Finestra troppo lunga (" + window
+                    + " nucleotidi) per una matrice in memoria");
+        this.cells = new char[window * window];
+    }
+
+    @Override
+    int get(int i, int j) {
+        if (j < i)
+            return 0;
+        return cells[index(i, j)];
+    }
+
+    @Override
+    void set(int i, int j, int value) {
+        cells[index(i, j)] = (char) value;
+    }
+
+    private int index(int i, int j) {
+        int window = size();
+        return (i % window) * window + j % window;
+    }
+
+}
@@ -12,11 +12,15 @@ public class SecondaryStructure {
 
     private final String primarySequence;
 
+    private final byte[] codes;
+
+    private final PairingScheme scheme;
+
     private Set<WeakBond> bonds;
 
     /**
      * Costruisce una struttura secondaria con un insieme vuoto di legami
-     * deboli.
+     * deboli, in cui sono ammesse le coppie GC, AU e GU.
      *
      * @param primarySequence
      *                            la sequenza di nucleotidi
@@ -28,24 +32,36 @@ public class SecondaryStructure {
      *                                      se la sequenza di nucleotidi è nulla
      */
     public SecondaryStructure(String primarySequence) {
+        this(primarySequence, PairingScheme.WOBBLE);
+    }
+
+    /**
+     * Costruisce una struttura secondaria con un insieme vuoto di legami
+     * deboli, in cui sono ammesse le coppie di uno schema di appaiamento.
+     *
+     * @param primarySequence
+     *                            la sequenza di nucleotidi
+     * @param scheme
+     *                            lo schema che stabilisce le coppie ammesse
+     *
+     * @throws IllegalArgumentException
+     *                                      se la primarySequence contiene dei
+     *                                      codici di nucleotidi sconosciuti
+     * @throws NullPointerException
+     *                                      se la sequenza di nucleotidi o lo
+     *                                      schema sono nulli
+     */
+    public SecondaryStructure(String primarySequence, PairingScheme scheme) {
         if (primarySequence == null)
             throw new NullPointerException(
                     "Tentativo di costruire un solutore Nussinov a partire da una sequenza nulla");
+        if (scheme == null)
+            throw new NullPointerException("Schema di appaiamento nullo");
         String seq = primarySequence.toUpperCase().trim();
-        // check bases in the primary structure
-        for (int i = 0; i < seq.length(); i++)
-            switch (seq.charAt(i)) {
-                case 'A':
-                case 'U':
-                case 'C':
-                case 'G':
-                    break;
-                default:
-                    throw new IllegalArgumentException(
-                            "INPUT ERROR: primary structure contains an unkwnown nucleotide code at position "
-                                    + (i + 1));
-            }
+        // check bases in the primary structure - IUPAC nucleotide codes
+        this.codes = Nucleotides.encode(seq);
         this.primarySequence = seq;
+        this.scheme = scheme;
         this.bonds = new HashSet<WeakBond>();
     }
 
@@ -78,25 +94,7 @@ public class SecondaryStructure {
      *
      */
     public SecondaryStructure(String primarySequence, Set<WeakBond> bonds) {
-        if (primarySequence == null)
-            throw new NullPointerException(
-                    "Tentativo di costruire un solutore Nussinov a partire da una sequenza nulla");
-        String seq = primarySequence.toUpperCase().trim();
-        // check bases in the primary structure
-        for (int i = 0; i < seq.length(); i++)
-            switch (seq.charAt(i)) {
-                case 'A':
-                case 'U':
-                case 'C':
-                case 'G':
-                    break;
-                default:
-                    throw new IllegalArgumentException(
-                            "INPUT ERROR: primary structure contains an unkwnown nucleotide code at position "
-                                    + (i + 1));
-            }
-        this.primarySequence = seq;
-        this.bonds = new HashSet<WeakBond>();
+        this(primarySequence);
         /*
             for(int i = 0; i < bonds.size(); i++) {
                 WeakBond b = bonds[i];
@@ -124,6 +122,16 @@ public class SecondaryStructure {
         return this.bonds;
     }
 
+    /**
+     * Restituisce lo schema di appaiamento che stabilisce le coppie ammesse in
+     * questa struttura secondaria.
+     *
+     * @return lo schema di appaiamento
+     */
+    public PairingScheme getPairingScheme() {
+        return this.scheme;
+    }
+
     /**
      * Determina se questa struttura contiene pseudonodi.
      *
@@ -183,13 +191,7 @@ public class SecondaryStructure {
             throw  new IndexOutOfBoundsException();
         }
 
-        char charI = primarySequence.charAt(b.getI()-1);
-        char charJ = primarySequence.charAt(b.getJ()-1);
-
-        if (!(isValid(charI, charJ, 'G', 'C') ||
-                isValid(charI, charJ, 'A', 'U') ||
-                isValid(charI, charJ, 'U', 'G'))
-        ) {
+        if (!scheme.canPair(codes[b.getI()-1], codes[b.getJ()-1])) {
             throw new IllegalArgumentException();
         }
 
@@ -197,10 +199,6 @@ public class SecondaryStructure {
 
     }
 
-    private boolean isValid(char n1, char n2, char validN1, char validN2) {
-        return n1 == validN2 && n2 == validN1 || n1 == validN1 && n2 == validN2;
-    }
-
     /**
      * Restituisce il numero di legami deboli presenti in questa struttura.
      *
@@ -210,6 +208,20 @@ public class SecondaryStructure {
         return this.bonds.size();
     }
 
+    /**
+     * Restituisce la somma dei pesi dei legami deboli di questa struttura,
+     * secondo il suo schema di appaiamento. Con uno schema non pesato coincide
+     * con il numero di legami.
+     *
+     * @return il peso totale dei legami
+     */
+    public int getScore() {
+        int score = 0;
+        for (WeakBond b : this.bonds)
+            score += scheme.weight(codes[b.getI()-1], codes[b.getJ()-1]);
+        return score;
+    }
+
     /**
      * Restituisce una stringa contenente la rappresentazione nella notazione
      * dot-bracket di questa struttura secondaria.
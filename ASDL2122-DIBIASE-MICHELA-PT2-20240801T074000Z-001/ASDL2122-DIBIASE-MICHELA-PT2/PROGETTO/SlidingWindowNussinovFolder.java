@@ -0,0 +1,135 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Folding con l'algoritmo di Nussinov-Jacobson di tutte le finestre di
+ * lunghezza fissa di una sequenza, che iniziano nelle posizioni
+ * {@code 1, 1 + step, 1 + 2 * step, ...} finché la finestra è contenuta nella
+ * sequenza.
+ *
+ * Le celle {@code N(i, j)} di un intervallo non dipendono dalla finestra che
+ * lo contiene, quindi quando la finestra avanza di step posizioni le righe
+ * rimaste nella finestra restano valide: basta calcolare le step nuove colonne
+ * a destra, mentre le righe uscite a sinistra vengono sovrascritte in una
+ * matrice circolare. Ogni finestra costa {@code O(step * window^2)} invece di
+ * {@code O(window^3)}.
+ *
+ */
+public class SlidingWindowNussinovFolder {
+
+    private final String primarySequence;
+
+    private final byte[] codes;
+
+    private final int window;
+
+    private final int step;
+
+    /**
+     * Costruisce un solver a finestra scorrevole.
+     *
+     * @param primarySequence
+     *                            la sequenza di nucleotidi di cui fare il
+     *                            folding
+     * @param window
+     *                            la lunghezza delle finestre; se supera la
+     *                            lunghezza della sequenza c'è un'unica
+     *                            finestra con tutta la sequenza, mentre una
+     *                            sequenza vuota non ha finestre
+     * @param step
+     *                            la distanza fra gli inizi di due finestre
+     *                            consecutive
+     *
+     * @throws IllegalArgumentException
+     *                                      se la primarySequence contiene dei
+     *                                      codici di nucleotidi sconosciuti o
+     *                                      se window o step non sono positivi
+     * @throws NullPointerException
+     *                                      se la sequenza di nucleotidi è nulla
+     */
+    public SlidingWindowNussinovFolder(String primarySequence, int window, int step) {
+        if (primarySequence == null)
+            throw new NullPointerException(
+                    "Tentativo di costruire un solutore Nussinov a partire da una sequenza nulla");
+        if (window <= 0 || step <= 0)
+            throw new IllegalArgumentException(
+                    "La finestra e il passo devono essere positivi");
+        String seq = primarySequence.toUpperCase().trim();
+        // check bases in the primary structure - IUPAC nucleotide codes
+        this.codes = Nucleotides.encode(seq);
+        this.primarySequence = seq;
+        this.window = Math.max(1, Math.min(window, seq.length()));
+        this.step = step;
+    }
+
+    /**
+     * Restituisce la sequenza di nucleotidi.
+     *
+     * @return la sequenza di nucleotidi
+     */
+    public String getSequence() {
+        return this.primarySequence;
+    }
+
+    /**
+     * Restituisce il folding delle finestre in ordine di posizione. Lo stream
+     * è pigro: ogni finestra viene calcolata solo quando viene richiesta, a
+     * partire dallo stato lasciato dalla precedente. Ogni chiamata parte da
+     * capo con una matrice nuova, quindi stream diversi sono indipendenti.
+     *
+     * @return lo stream dei risultati delle finestre
+     */
+    public Stream<FoldedWindow> windows() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                new WindowIterator(),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE),
+                false);
+    }
+
+    private class WindowIterator implements Iterator<FoldedWindow> {
+
+        private final RingTriangularMatrix matrix = new RingTriangularMatrix(window);
+
+        private final PairingPartners partners = new PairingPartners(codes);
+
+        // inizio della prossima finestra e prima colonna non calcolata
+        private int start = 0;
+
+        private int computed = 0;
+
+        @Override
+        public boolean hasNext() {
+            return start + window <= primarySequence.length();
+        }
+
+        @Override
+        public FoldedWindow next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            int end = start + window - 1;
+            // le colonne già calcolate sono valide per le righe ancora nella
+            // finestra; le nuove vanno calcolate solo da queste righe
+            for (int j = Math.max(computed, start); j <= end; j++)
+                matrix.fillColumn(j, start, partners);
+            computed = end + 1;
+            int[] pairs = NussinovFolder.traceback(matrix, partners, start, end);
+            for (int p = 0; p < pairs.length; p++)
+                pairs[p] -= start;
+            String subsequence = primarySequence.substring(start, end + 1);
+            FoldedWindow result = new FoldedWindow(start + 1,
+                    NussinovFolder.buildStructure(subsequence, pairs));
+            start += step;
+            return result;
+        }
+
+    }
+
+}
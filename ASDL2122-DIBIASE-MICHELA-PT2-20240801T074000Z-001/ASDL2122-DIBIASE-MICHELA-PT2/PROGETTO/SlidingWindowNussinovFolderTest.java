@@ -0,0 +1,52 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di Test per la classe SlidingWindowNussinovFolder
+ *
+ */
+class SlidingWindowNussinovFolderTest {
+
+    @Test
+    final void testWindowsMatchNussinovFolder() {
+        Random random = new Random(80);
+        String sequence = RandomSequences.generate(random, 157);
+        for (int window : new int[] { 1, 10, 40 })
+            for (int step : new int[] { 1, 3, 40, 55 }) {
+                List<FoldedWindow> windows = new SlidingWindowNussinovFolder(
+                        sequence, window, step).windows().collect(Collectors.toList());
+                assertEquals((sequence.length() - window) / step + 1, windows.size());
+                for (int w = 0; w < windows.size(); w++) {
+                    FoldedWindow result = windows.get(w);
+                    assertEquals(w * step + 1, result.getStart());
+                    assertEquals(w * step + window, result.getEnd());
+                    String subsequence = sequence.substring(w * step, w * step + window);
+                    NussinovFolder folder = new NussinovFolder(subsequence);
+                    folder.fold();
+                    assertEquals(subsequence, result.getStructure().getPrimarySequence());
+                    assertEquals(folder.getOneOptimalStructure().getCardinality(),
+                            result.getScore());
+                    assertFalse(result.getStructure().isPseudoknotted());
+                }
+            }
+    }
+
+    @Test
+    final void testShortSequences() {
+        List<FoldedWindow> windows = new SlidingWindowNussinovFolder("gcacgacg", 100, 5)
+                .windows().collect(Collectors.toList());
+        assertEquals(1, windows.size());
+        assertEquals(3, windows.get(0).getScore());
+        assertEquals(0, new SlidingWindowNussinovFolder("", 10, 1).windows().count());
+        assertThrows(IllegalArgumentException.class,
+                () -> new SlidingWindowNussinovFolder("GC", 2, 0));
+    }
+
+}
@@ -0,0 +1,131 @@
+package it.unicam.cs.asdl2122.pt2;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Implementazione sparsificata dell'algoritmo di Nussinov-Jacobson. Invece di
+ * provare nel ciclo interno tutti i k fra i e j - 1, considera solo i
+ * "candidati" della colonna j: le posizioni k che possono legarsi con j e per
+ * cui il legame {@code (k, j)} non è dominato.
+ *
+ * Un legame {@code (k, j)} è dominato quando
+ * {@code N(k + 1, j) = N(k + 1, j - 1) + 1}, cioè quando l'intervallo
+ * {@code [k + 1, j]} ha già una soluzione ottima in cui j è legato: in tal caso
+ * per ogni i vale
+ * {@code N(i, k - 1) + N(k + 1, j - 1) + 1 <= N(i, k) + N(k + 1, j)} e lo
+ * stesso valore è raggiunto legando j con un candidato più a destra. Sulle
+ * sequenze casuali i candidati sono una piccola frazione delle posizioni.
+ *
+ * La matrice è riempita per colonne, con i decrescente, così che quando si
+ * calcola {@code N(i, j)} tutti i candidati {@code k >= i} della colonna j
+ * sono già noti.
+ *
+ */
+public class SparseNussinovFolder implements FoldingAlgorithm {
+
+    private final String primarySequence;
+
+    private final byte[] codes;
+
+    private SecondaryStructure optimalSubstructure;
+
+    private NussinovMatrix nussinovJacobson;
+
+    /**
+     * Costruisce un solver che utilizza l'algoritmo di Nussinov-Jacobson
+     * sparsificato.
+     *
+     * @param primarySequence
+     *                            la sequenza di nucleotidi di cui fare il
+     *                            folding
+     *
+     * @throws IllegalArgumentException
+     *                                      se la primarySequence contiene dei
+     *                                      codici di nucleotidi sconosciuti
+     * @throws NullPointerException
+     *                                      se la sequenza di nucleotidi è nulla
+     */
+    public SparseNussinovFolder(String primarySequence) {
+        if (primarySequence == null)
+            throw new NullPointerException(
+                    "Tentativo di costruire un solutore Nussinov a partire da una sequenza nulla");
+        String seq = primarySequence.toUpperCase().trim();
+        // check bases in the primary structure - IUPAC nucleotide codes
+        this.codes = Nucleotides.encode(seq);
+        this.primarySequence = seq;
+        this.optimalSubstructure = null;
+    }
+
+    @Override
+    public String getName() {
+        return "SparseNussinovFolder";
+    }
+
+    @Override
+    public String getSequence() {
+        return this.primarySequence;
+    }
+
+    @Override
+    public void fold() {
+        PairingPartners partners = fill();
+        int[] pairs = NussinovFolder.traceback(nussinovJacobson, partners, 0,
+                primarySequence.length() - 1);
+        optimalSubstructure = NussinovFolder.buildStructure(primarySequence, pairs);
+    }
+
+    @Override
+    public int computeOptimalCardinality() {
+        fill();
+        return nussinovJacobson.get(0, primarySequence.length() - 1);
+    }
+
+    private PairingPartners fill() {
+        int n = primarySequence.length();
+        nussinovJacobson = NussinovMatrix.create(n, TriangularLayout.ROW_MAJOR, n / 2);
+        PairingPartners partners = new PairingPartners(codes);
+        // candidati della colonna corrente, in ordine decrescente di k, con il
+        // valore N(k + 1, j - 1) + 1 che non dipende da i
+        int[] candidates = new int[n];
+        int[] inner = new int[n];
+        for (int j = 1; j < n; j++) {
+            int[] pairable = partners.of(j);
+            // prossimo partner di j da considerare, scorrendo verso sinistra
+            int next = partners.firstAtLeast(j, j) - 1;
+            int count = 0;
+            for (int i = j - 1; i >= 0; i--) {
+                if (next >= 0 && pairable[next] == i) {
+                    next--;
+                    int closed = nussinovJacobson.get(i + 1, j - 1) + 1;
+                    // N(i + 1, j) è già stato calcolato in questa colonna
+                    if (nussinovJacobson.get(i + 1, j) < closed) {
+                        candidates[count] = i;
+                        inner[count] = closed;
+                        count++;
+                    }
+                }
+                int max = nussinovJacobson.get(i, j - 1);
+                for (int c = 0; c < count; c++) {
+                    int val = nussinovJacobson.get(i, candidates[c] - 1) + inner[c];
+                    if (val > max)
+                        max = val;
+                }
+                nussinovJacobson.set(i, j, max);
+            }
+        }
+        return partners;
+    }
+
+    @Override
+    public boolean isFolded() {
+        return optimalSubstructure != null;
+    }
+
+    @Override
+    public SecondaryStructure getOneOptimalStructure() {
+        if (!isFolded())
+            throw new IllegalStateException();
+        return optimalSubstructure;
+    }
+
+}
@@ -0,0 +1,44 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di Test per la classe SparseNussinovFolder
+ *
+ */
+class SparseNussinovFolderTest {
+
+    @Test
+    final void testGetOneOptimalStructure() {
+        SparseNussinovFolder folder = new SparseNussinovFolder("GCACGACG");
+        assertThrows(IllegalStateException.class, () -> folder.getOneOptimalStructure());
+        folder.fold();
+        assertTrue(folder.isFolded());
+        assertEquals(3, folder.getOneOptimalStructure().getCardinality());
+    }
+
+    @Test
+    final void testSameStructureAsNussinovFolder() {
+        Random random = new Random(1979);
+        for (int length = 0; length < 300; length += 11) {
+            String sequence = RandomSequences.generate(random, length);
+            NussinovFolder nussinov = new NussinovFolder(sequence);
+            nussinov.fold();
+            SparseNussinovFolder sparse = new SparseNussinovFolder(sequence);
+            sparse.fold();
+            assertEquals(nussinov.getOneOptimalStructure(), sparse.getOneOptimalStructure());
+        }
+    }
+
+    @Test
+    final void testHomopolymerHasNoBonds() {
+        SparseNussinovFolder folder = new SparseNussinovFolder("AAAAAAAAAA");
+        folder.fold();
+        assertEquals(0, folder.getOneOptimalStructure().getCardinality());
+    }
+
+}
@@ -0,0 +1,180 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Enumerazione pigra, alla Wuchty, delle strutture secondarie senza
+ * pseudonodi con al più delta legami in meno dell'ottimo, a partire da una
+ * matrice di Nussinov-Jacobson già riempita.
+ *
+ * Ogni struttura dell'intervallo {@code [i, j]} ha j non legato oppure legato a
+ * uno e un solo k, quindi seguendo le due alternative della ricorrenza ogni
+ * struttura viene prodotta esattamente una volta. Una struttura parziale è
+ * descritta dagli intervalli ancora da decomporre, dai legami già scelti e dal
+ * numero di legami che si può ancora perdere rispetto all'ottimo; un'alternativa
+ * viene esplorata solo se la sua perdita {@code N(i, j) - valore} rientra in
+ * questo margine, quindi ogni ramo della visita in profondità termina con una
+ * struttura. Con i vincoli le celle degli intervalli senza strutture ammesse
+ * valgono {@code NO_PAIR}: un'alternativa che ne legge una viene scartata
+ * qualunque sia il margine, come un intervallo di un solo nucleotide che deve
+ * essere legato. Intervalli e legami sono liste immutabili che condividono la
+ * coda fra strutture parziali diverse, così la memoria dipende dalla
+ * profondità della visita e non dal numero di strutture già prodotte.
+ *
+ */
+final class StructureEnumerator implements Iterator<SecondaryStructure> {
+
+    /*
+     * Lista immutabile di coppie di posizioni: intervalli [a, b] oppure
+     * legami (a, b).
+     */
+    private static final class Pairs {
+
+        final int a;
+
+        final int b;
+
+        final Pairs next;
+
+        Pairs(int a, int b, Pairs next) {
+            this.a = a;
+            this.b = b;
+            this.next = next;
+        }
+
+    }
+
+    private static final class Partial {
+
+        final Pairs intervals;
+
+        final Pairs bonds;
+
+        final int slack;
+
+        Partial(Pairs intervals, Pairs bonds, int slack) {
+            this.intervals = intervals;
+            this.bonds = bonds;
+            this.slack = slack;
+        }
+
+    }
+
+    private final NussinovMatrix matrix;
+
+    private final PairingPartners partners;
+
+    private final String primarySequence;
+
+    private final Deque<Partial> stack = new ArrayDeque<>();
+
+    private SecondaryStructure next;
+
+    /**
+     * Prepara l'enumerazione delle strutture dell'intera sequenza.
+     *
+     * @param matrix
+     *                            la matrice riempita, che viene solo letta
+     * @param partners
+     *                            i possibili partner di legame di ogni
+     *                            posizione
+     * @param primarySequence
+     *                            la sequenza di nucleotidi
+     * @param delta
+     *                            il massimo numero di legami in meno rispetto
+     *                            all'ottimo, non negativo
+     */
+    StructureEnumerator(NussinovMatrix matrix, PairingPartners partners,
+            String primarySequence, int delta) {
+        this.matrix = matrix;
+        this.partners = partners;
+        this.primarySequence = primarySequence;
+        stack.push(new Partial(new Pairs(0, primarySequence.length() - 1, null), null, delta));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null)
+            next = advance();
+        return next != null;
+    }
+
+    @Override
+    public SecondaryStructure next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        SecondaryStructure result = next;
+        next = null;
+        return result;
+    }
+
+    private SecondaryStructure advance() {
+        Partial[] children = new Partial[0];
+        while (!stack.isEmpty()) {
+            Partial partial = stack.pop();
+            Pairs intervals = partial.intervals;
+            // gli intervalli vuoti o di un solo nucleotide non hanno scelte,
+            // ma un nucleotide che deve essere legato non può restare da solo
+            boolean feasible = true;
+            while (intervals != null && intervals.b <= intervals.a) {
+                if (intervals.b == intervals.a && partners.mustPair(intervals.a))
+                    feasible = false;
+                intervals = intervals.next;
+            }
+            if (!feasible)
+                continue;
+            if (intervals == null)
+                return build(partial.bonds);
+            int i = intervals.a;
+            int j = intervals.b;
+            Pairs rest = intervals.next;
+            int best = matrix.get(i, j);
+            int[] candidates = partners.of(j);
+            int first = partners.firstAtLeast(j, i);
+            int last = partners.leftEnd(j);
+            if (children.length < last - first + 1)
+                children = new Partial[last - first + 1];
+            int count = 0;
+            // j non legato, se i vincoli lo permettono
+            int unpaired = matrix.get(i, j - 1);
+            int loss = best - unpaired;
+            if (unpaired >= 0 && loss <= partial.slack && !partners.mustPair(j))
+                children[count++] = new Partial(new Pairs(i, j - 1, rest),
+                        partial.bonds, partial.slack - loss);
+            // j legato a k
+            for (int c = first; c < last; c++) {
+                int k = candidates[c];
+                int left = matrix.get(i, k - 1);
+                int inner = matrix.get(k + 1, j - 1);
+                // un intervallo senza strutture ammesse vale NO_PAIR
+                if (left < 0 || inner < 0)
+                    continue;
+                loss = best - (left + inner + partners.weight(k, j));
+                if (loss <= partial.slack)
+                    children[count++] = new Partial(
+                            new Pairs(i, k - 1, new Pairs(k + 1, j - 1, rest)),
+                            new Pairs(k, j, partial.bonds), partial.slack - loss);
+            }
+            // la prima alternativa viene esplorata per prima
+            while (count > 0) {
+                stack.push(children[--count]);
+                children[count] = null;
+            }
+        }
+        return null;
+    }
+
+    private SecondaryStructure build(Pairs bonds) {
+        SecondaryStructure structure = new SecondaryStructure(primarySequence,
+                partners.getScheme());
+        for (Pairs bond = bonds; bond != null; bond = bond.next)
+            structure.addBond(new WeakBond(bond.a + 1, bond.b + 1));
+        return structure;
+    }
+
+}
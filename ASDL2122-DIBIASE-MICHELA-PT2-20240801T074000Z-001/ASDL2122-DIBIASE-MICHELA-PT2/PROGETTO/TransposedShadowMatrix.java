@@ -0,0 +1,71 @@
+package it.unicam.cs.asdl2122.pt2;
+
+/**
+ * Matrice triangolare con celle a 16 bit che memorizza ogni valore due volte:
+ * per righe e, in una copia trasposta, per colonne. Nel ciclo interno della
+ * ricorrenza di Nussinov la riga i e la colonna {@code j - 1} vengono così
+ * scorse entrambe in memoria contigua, senza salti fra righe diverse, e il
+ * massimo può essere vettorizzato dal compilatore JIT.
+ *
+ */
+class TransposedShadowMatrix extends NussinovMatrix {
+
+    /*
+     * Celle per righe: la riga i inizia in rowStarts[i] e contiene le colonne
+     * i, i + 1, ..., n - 1.
+     */
+    private final char[] rows;
+
+    private final int[] rowStarts;
+
+    /*
+     * Celle per colonne: la colonna j inizia in columnStarts[j] e contiene le
+     * righe 0, 1, ..., j.
+     */
+    private final char[] columns;
+
+    private final int[] columnStarts;
+
+    TransposedShadowMatrix(int size) {
+        super(size);
+        this.rowStarts = arrayStarts(size, TriangularLayout.ROW_MAJOR);
+        int cells = (int) TriangularLayout.cellCount(size);
+        this.rows = new char[cells];
+        this.columns = new char[cells];
+        this.columnStarts = new int[size];
+        for (int j = 1; j < size; j++)
+            columnStarts[j] = columnStarts[j - 1] + j;
+    }
+
+    @Override
+    int get(int i, int j) {
+        if (j < i)
+            return 0;
+        return rows[rowStarts[i] + (j - i)];
+    }
+
+    @Override
+    void set(int i, int j, int value) {
+        rows[rowStarts[i] + (j - i)] = (char) value;
+        columns[columnStarts[j] + i] = (char) value;
+    }
+
+    @Override
+    int maxSplit(int i, int j, int[] bonus) {
+        if (j == i + 1)
+            return bonus[i];
+        // k = i: l'intervallo [i, k - 1] è vuoto
+        int max = get(i + 1, j - 1) + bonus[i];
+        // k = j - 1: l'intervallo [k + 1, j - 1] è vuoto
+        max = Math.max(max, get(i, j - 2) + bonus[j - 1]);
+        // rows[r + k] = N(i, k - 1) e columns[c + k] = N(k + 1, j - 1)
+        final char[] rows = this.rows;
+        final char[] columns = this.columns;
+        final int r = rowStarts[i] - i - 1;
+        final int c = columnStarts[j - 1] + 1;
+        for (int k = i + 1; k < j - 1; k++)
+            max = Math.max(max, rows[r + k] + columns[c + k] + bonus[k]);
+        return max;
+    }
+
+}
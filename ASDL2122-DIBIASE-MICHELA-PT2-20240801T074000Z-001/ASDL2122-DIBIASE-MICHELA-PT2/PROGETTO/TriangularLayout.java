@@ -0,0 +1,59 @@
+package it.unicam.cs.asdl2122.pt2;
+
+/**
+ * Disposizione in un unico array delle celle {@code (i, j), i <= j} della
+ * parte triangolare superiore di una matrice quadrata di dimensione n. Le celle
+ * sotto la diagonale non vengono memorizzate.
+ *
+ */
+public enum TriangularLayout {
+
+    /**
+     * Le righe sono memorizzate una dopo l'altra: la riga i occupa le
+     * posizioni delle celle {@code (i, i), (i, i + 1), ..., (i, n - 1)}.
+     */
+    ROW_MAJOR,
+
+    /**
+     * Le anti-diagonali sono memorizzate una dopo l'altra: la diagonale
+     * {@code d = j - i} occupa le posizioni delle celle
+     * {@code (0, d), (1, d + 1), ..., (n - 1 - d, n - 1)}. È la disposizione
+     * più compatta per il riempimento a fronte d'onda.
+     */
+    DIAGONAL_MAJOR;
+
+    /**
+     * Restituisce il numero di celle memorizzate per una matrice di dimensione
+     * data.
+     *
+     * @param n
+     *              la dimensione della matrice
+     * @return il numero di celle della parte triangolare superiore, diagonale
+     *         compresa
+     */
+    public static long cellCount(int n) {
+        return (long) n * (n + 1) / 2;
+    }
+
+    /**
+     * Calcola, per ogni riga (o per ogni diagonale) la posizione della sua
+     * prima cella. La posizione della cella {@code (i, j)} si ottiene poi con
+     * una somma: {@code starts[i] + (j - i)} per {@code ROW_MAJOR} e
+     * {@code starts[j - i] + i} per {@code DIAGONAL_MAJOR}.
+     *
+     * @param n
+     *              la dimensione della matrice
+     * @return le posizioni di inizio di righe o diagonali
+     */
+    long[] starts(int n) {
+        long[] starts = new long[n];
+        long next = 0;
+        // in entrambe le disposizioni il blocco s contiene n - s celle
+        for (int s = 0; s < n; s++) {
+            starts[s] = next;
+            next += n - s;
+        }
+        return starts;
+    }
+
+}
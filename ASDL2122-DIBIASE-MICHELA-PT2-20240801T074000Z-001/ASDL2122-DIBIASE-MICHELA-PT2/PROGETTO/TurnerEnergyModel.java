@@ -0,0 +1,160 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.util.Arrays;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Modello di energia libera ai primi vicini per le strutture secondarie di
+ * RNA, semplificato dai parametri di Turner (2004) a 37 gradi. Le energie sono
+ * interi in centesimi di kcal/mol.
+ *
+ * Sono modellati l'impilamento di due coppie consecutive, le forcine, i
+ * rigonfiamenti e i cicli interni in funzione della sola lunghezza (con
+ * estrapolazione logaritmica oltre le tabelle), la penalità di asimmetria dei
+ * cicli interni, la penalità per le coppie AU e GU terminali e i cicli
+ * multipli con un costo lineare. Non sono modellati i mismatch terminali, i
+ * dangle, le forcine speciali e le tabelle dei cicli interni piccoli.
+ *
+ */
+final class TurnerEnergyModel {
+
+    /**
+     * Energia di una struttura impossibile, abbastanza grande da non vincere
+     * mai un minimo e abbastanza piccola da poterne sommare alcune senza
+     * overflow.
+     */
+    static final int INF = 10_000_000;
+
+    /**
+     * Minimo numero di nucleotidi non legati in una forcina.
+     */
+    static final int MIN_HAIRPIN = 3;
+
+    /**
+     * Costo di chiusura di un ciclo multiplo.
+     */
+    static final int ML_CLOSING = 340;
+
+    /**
+     * Costo di ogni ramo di un ciclo multiplo, compreso quello di chiusura.
+     */
+    static final int ML_BRANCH = 40;
+
+    /**
+     * Costo di ogni nucleotide non legato in un ciclo multiplo.
+     */
+    static final int ML_UNPAIRED = 0;
+
+    /*
+     * Tipi di coppia nell'ordine di ViennaRNA; NO_PAIR se i nucleotidi non si
+     * legano.
+     */
+    private static final int NO_PAIR = -1;
+
+    private static final int CG = 0, GC = 1, GU = 2, UG = 3, AU = 4, UA = 5;
+
+    private static final int[] PAIR_TYPES = new int[Nucleotides.COUNT * Nucleotides.COUNT];
+
+    static {
+        Arrays.fill(PAIR_TYPES, NO_PAIR);
+        PAIR_TYPES[(Nucleotides.C << 2) | Nucleotides.G] = CG;
+        PAIR_TYPES[(Nucleotides.G << 2) | Nucleotides.C] = GC;
+        PAIR_TYPES[(Nucleotides.G << 2) | Nucleotides.U] = GU;
+        PAIR_TYPES[(Nucleotides.U << 2) | Nucleotides.G] = UG;
+        PAIR_TYPES[(Nucleotides.A << 2) | Nucleotides.U] = AU;
+        PAIR_TYPES[(Nucleotides.U << 2) | Nucleotides.A] = UA;
+    }
+
+    /*
+     * STACK[t1][t2]: coppia (i, j) sopra la coppia (p, q) = (i + 1, j - 1),
+     * con t1 il tipo di (i, j) e t2 il tipo di (q, p).
+     */
+    private static final int[][] STACK = {
+            { -240, -330, -210, -140, -210, -210 },
+            { -330, -340, -250, -150, -220, -240 },
+            { -210, -250, 130, -50, -140, -130 },
+            { -140, -150, -50, 30, -60, -100 },
+            { -210, -220, -140, -60, -110, -90 },
+            { -210, -240, -130, -100, -90, -130 } };
+
+    private static final int[] HAIRPIN = { INF, INF, INF, 540, 560, 570, 540, 600, 550, 640 };
+
+    private static final int[] BULGE = { INF, 380, 280, 320, 360, 400, 440, 459, 470, 480, 490 };
+
+    private static final int[] INTERIOR = { INF, INF, 50, 160, 110, 200, 200, 210, 230, 240, 250 };
+
+    /*
+     * Coefficiente dell'estrapolazione logaritmica delle tabelle.
+     */
+    private static final double LOOP_EXTRAPOLATION = 107.856;
+
+    private static final int TERMINAL_AU = 50;
+
+    private static final int INTERIOR_TERMINAL_AU = 70;
+
+    private static final int ASYMMETRY = 60;
+
+    private static final int MAX_ASYMMETRY = 300;
+
+    private TurnerEnergyModel() {
+    }
+
+    /**
+     * Restituisce il tipo della coppia di nucleotidi x, y, oppure un valore
+     * negativo se non possono legarsi.
+     */
+    static int pairType(byte x, byte y) {
+        return PAIR_TYPES[(x << 2) | y];
+    }
+
+    /**
+     * Penalità di una coppia terminale AU o GU in un ciclo esterno o multiplo.
+     */
+    static int terminalPenalty(int type) {
+        return type >= GU ? TERMINAL_AU : 0;
+    }
+
+    /**
+     * Energia di una forcina chiusa da una coppia, con size nucleotidi non
+     * legati.
+     */
+    static int hairpin(int size) {
+        if (size < MIN_HAIRPIN)
+            return INF;
+        return loop(HAIRPIN, size);
+    }
+
+    /**
+     * Energia del ciclo fra la coppia esterna (i, j), di tipo outer, e la
+     * coppia interna (p, q), di tipo inner letto come (q, p), con left
+     * nucleotidi non legati fra i e p e right fra q e j: impilamento,
+     * rigonfiamento o ciclo interno.
+     */
+    static int interior(int outer, int inner, int left, int right) {
+        if (left == 0 && right == 0)
+            return STACK[outer][inner];
+        if (left == 0 || right == 0) {
+            int size = left + right;
+            if (size == 1)
+                return loop(BULGE, 1) + STACK[outer][inner];
+            return loop(BULGE, size) + terminalPenalty(outer) + terminalPenalty(inner);
+        }
+        int energy = loop(INTERIOR, left + right)
+                + Math.min(MAX_ASYMMETRY, ASYMMETRY * Math.abs(left - right));
+        if (outer >= GU)
+            energy += INTERIOR_TERMINAL_AU;
+        if (inner >= GU)
+            energy += INTERIOR_TERMINAL_AU;
+        return energy;
+    }
+
+    private static int loop(int[] table, int size) {
+        if (size < table.length)
+            return table[size];
+        int last = table.length - 1;
+        return table[last]
+                + (int) Math.round(LOOP_EXTRAPOLATION * Math.log((double) size / last));
+    }
+
+}
@@ -0,0 +1,84 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Confronta i tempi di folding di {@code ValiantNussinovFolder} con quelli di
+ * {@code NussinovFolder} su sequenze casuali lunghe, fino a 10000 nucleotidi.
+ * Per ogni lunghezza viene riportato il tempo medio in nanosecondi dei due
+ * algoritmi e lo speedup dei prodotti (max, +) fra blocchi. I risultati sono
+ * scritti nel file valiantbench.csv.
+ *
+ */
+public class ValiantNussinovBenchmark {
+
+    /**
+     * Lunghezze delle sequenze da generare
+     */
+    public static final int[] LENGTHS = { 2500, 5000, 10000 };
+
+    /**
+     * Numero di sequenze da generare per lunghezza
+     */
+    public static final int NUMBER_OF_SAMPLES_PER_LENGTH = 1;
+
+    /**
+     * Numero di folding di riscaldamento della JVM prima delle misure
+     */
+    public static final int WARMUP_FOLDS = 3;
+
+    public static void main(String[] args) {
+        String dirName = null;
+        if (args.length > 0)
+            dirName = args[0];
+        else
+            dirName = ".";
+        PrintStream o = null;
+        try {
+            o = new PrintStream(new File(dirName + "/" + "valiantbench.csv"));
+        } catch (FileNotFoundException e) {
+            System.out.println("Errore creazione file di ouput");
+            System.exit(0);
+        }
+        Random randomGenerator = new Random();
+        // Riscaldamento: fa compilare al JIT i cicli interni di entrambi gli
+        // algoritmi
+        for (int w = 0; w < WARMUP_FOLDS; w++) {
+            String sequence = RandomSequences.generate(randomGenerator, 1000);
+            time(new NussinovFolder(sequence));
+            time(new ValiantNussinovFolder(sequence));
+        }
+        o.print("Length,NussinovFolder Tns,ValiantNussinovFolder Tns,Speedup,");
+        o.print("\n");
+        for (int n : LENGTHS) {
+            long nussinov = 0;
+            long valiant = 0;
+            for (int s = 0; s < NUMBER_OF_SAMPLES_PER_LENGTH; s++) {
+                String sequence = RandomSequences.generate(randomGenerator, n);
+                nussinov += time(new NussinovFolder(sequence));
+                valiant += time(new ValiantNussinovFolder(sequence));
+            }
+            o.print(n + ",");
+            o.print(nussinov / NUMBER_OF_SAMPLES_PER_LENGTH + ",");
+            o.print(valiant / NUMBER_OF_SAMPLES_PER_LENGTH + ",");
+            double speedup = (double) nussinov / valiant;
+            o.print(String.format(Locale.ROOT, "%.2f", speedup)
+                    + ",");
+            o.print("\n");
+            System.out.println("Lunghezza " + n + ": speedup "
+                    + String.format("%.2f", speedup));
+        }
+        o.close();
+    }
+
+    private static long time(FoldingAlgorithm folder) {
+        long startTimeNano = System.nanoTime();
+        folder.fold();
+        return System.nanoTime() - startTimeNano;
+    }
+
+}
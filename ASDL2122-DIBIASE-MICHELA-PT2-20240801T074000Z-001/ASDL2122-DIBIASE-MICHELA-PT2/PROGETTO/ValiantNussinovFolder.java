@@ -0,0 +1,280 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Implementazione dell'algoritmo di Nussinov-Jacobson che riduce il
+ * riempimento della matrice a prodotti (max, +) di blocchi, come nella
+ * riduzione di Valiant per il parsing delle grammatiche libere dal contesto.
+ *
+ * La ricorrenza è scritta sui confini fra i nucleotidi: {@code E(x, y)}, con
+ * {@code 0 <= x <= y <= n}, è il massimo numero di legami fra le posizioni
+ * {@code x} e {@code y - 1}, e vale
+ * {@code E(x, y) = max(E(x + 1, y - 1) + legame(x, y - 1), max_{x<m<y} E(x, m) + E(m, y))}.
+ * La matrice E è divisa in blocchi quadrati di lato b; i blocchi sono
+ * calcolati per diagonali di blocchi e, per il blocco {@code (X, Y)}, i
+ * contributi dei punti di divisione m che cadono nei blocchi intermedi sono
+ * esattamente la somma (max, +) dei prodotti {@code E[X][M] ⊗ E[M][Y]} per
+ * {@code X < M < Y}, calcolati con {@code MaxPlusMatrixProduct}. Restano da
+ * aggiungere i punti di divisione nei blocchi X e Y stessi, che costano
+ * {@code O(b)} per cella e sono eseguiti come aggiornamenti di righe
+ * intere. I blocchi di una stessa diagonale sono indipendenti e vengono
+ * calcolati in parallelo.
+ *
+ * Il tempo resta {@code O(n^3)}, ma quasi tutto il lavoro è svolto dal nucleo
+ * di moltiplicazione, con accessi contigui alla memoria e cicli
+ * vettorizzabili, invece che dalle letture sparse della ricorrenza
+ * originale. La memoria è di circa {@code 2 n^2} byte.
+ *
+ */
+public class ValiantNussinovFolder implements FoldingAlgorithm {
+
+    /**
+     * Lato predefinito dei blocchi.
+     */
+    public static final int DEFAULT_TILE_SIZE = 128;
+
+    private static final int NEG = MaxPlusMatrixProduct.NEGATIVE_INFINITY;
+
+    private final String primarySequence;
+
+    private final byte[] codes;
+
+    private int tileSize;
+
+    private SecondaryStructure optimalSubstructure;
+
+    /*
+     * tiles[X][Y - X] è il blocco (X, Y) di E, per righe
+     */
+    private int[][][] tiles;
+
+    /**
+     * Costruisce un solver che utilizza l'algoritmo di Nussinov-Jacobson
+     * ridotto a prodotti (max, +) di blocchi.
+     *
+     * @param primarySequence
+     *                            la sequenza di nucleotidi di cui fare il
+     *                            folding
+     *
+     * @throws IllegalArgumentException
+     *                                      se la primarySequence contiene dei
+     *                                      codici di nucleotidi sconosciuti
+     * @throws NullPointerException
+     *                                      se la sequenza di nucleotidi è nulla
+     */
+    public ValiantNussinovFolder(String primarySequence) {
+        if (primarySequence == null)
+            throw new NullPointerException(
+                    "Tentativo di costruire un solutore Nussinov a partire da una sequenza nulla");
+        String seq = primarySequence.toUpperCase().trim();
+        // check bases in the primary structure - IUPAC nucleotide codes
+        this.codes = Nucleotides.encode(seq);
+        this.primarySequence = seq;
+        this.tileSize = DEFAULT_TILE_SIZE;
+        this.optimalSubstructure = null;
+    }
+
+    /**
+     * Restituisce il lato dei blocchi in cui è divisa la matrice.
+     *
+     * @return il lato dei blocchi
+     */
+    public int getTileSize() {
+        return this.tileSize;
+    }
+
+    /**
+     * Imposta il lato dei blocchi in cui è divisa la matrice. Blocchi più
+     * grandi rendono più efficienti i prodotti ma riducono il parallelismo
+     * fra i blocchi di una diagonale.
+     *
+     * @param tileSize
+     *                     il nuovo lato dei blocchi
+     *
+     * @throws IllegalArgumentException
+     *                                      se tileSize non è positivo
+     */
+    public void setTileSize(int tileSize) {
+        if (tileSize <= 0)
+            throw new IllegalArgumentException(
+                    "Il lato dei blocchi deve essere positivo");
+        this.tileSize = tileSize;
+    }
+
+    @Override
+    public String getName() {
+        return "ValiantNussinovFolder";
+    }
+
+    @Override
+    public String getSequence() {
+        return this.primarySequence;
+    }
+
+    @Override
+    public void fold() {
+        fill();
+        int n = primarySequence.length();
+        int[] pairs = NussinovFolder.traceback(new BoundaryView(n),
+                new PairingPartners(codes), 0, n - 1);
+        optimalSubstructure = NussinovFolder.buildStructure(primarySequence, pairs);
+    }
+
+    @Override
+    public int computeOptimalCardinality() {
+        fill();
+        return get(0, primarySequence.length());
+    }
+
+    private void fill() {
+        int n = primarySequence.length();
+        int b = tileSize;
+        int count = n / b + 1;
+        tiles = new int[count][][];
+        for (int x = 0; x < count; x++) {
+            tiles[x] = new int[count - x][];
+            for (int d = 0; d < count - x; d++) {
+                tiles[x][d] = new int[b * b];
+                Arrays.fill(tiles[x][d], NEG);
+            }
+        }
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        AntiDiagonalWavefront.run(count, 0, false, true, 1, (d, from, to) -> {
+            // con pochi blocchi nella diagonale si parallelizzano i prodotti
+            boolean parallelProducts = count - d < parallelism;
+            for (int x = from; x < to; x++)
+                if (d == 0)
+                    fillDiagonalTile(x);
+                else
+                    fillTile(x, x + d, parallelProducts);
+        });
+    }
+
+    /*
+     * Blocco (X, X): ricorrenza diretta, per righe dal basso e colonne da
+     * sinistra.
+     */
+    private void fillDiagonalTile(int X) {
+        int n = primarySequence.length();
+        int b = tileSize;
+        int base = X * b;
+        int width = Math.min(b, n + 1 - base);
+        int[] tile = tiles[X][0];
+        for (int xl = width - 1; xl >= 0; xl--) {
+            int x = base + xl;
+            tile[xl * b + xl] = 0;
+            if (xl + 1 < width)
+                tile[xl * b + xl + 1] = 0;
+            for (int yl = xl + 2; yl < width; yl++) {
+                int best = tile[(xl + 1) * b + yl - 1] + bond(x, base + yl - 1);
+                for (int ml = xl + 1; ml < yl; ml++)
+                    best = Math.max(best, tile[xl * b + ml] + tile[ml * b + yl]);
+                tile[xl * b + yl] = best;
+            }
+        }
+    }
+
+    /*
+     * Blocco (X, Y) con X < Y: prodotti con i blocchi intermedi, poi i punti
+     * di divisione nei blocchi X e Y.
+     */
+    private void fillTile(int X, int Y, boolean parallelProducts) {
+        int n = primarySequence.length();
+        int b = tileSize;
+        int[] tile = tiles[X][Y - X];
+        for (int M = X + 1; M < Y; M++)
+            if (parallelProducts)
+                MaxPlusMatrixProduct.multiplyAccumulateParallel(tiles[X][M - X],
+                        tiles[M][Y - M], tile, b, b, b);
+            else
+                MaxPlusMatrixProduct.multiplyAccumulate(tiles[X][M - X],
+                        tiles[M][Y - M], tile, b, b, b);
+        int[] left = tiles[X][0];
+        int[] right = tiles[Y][0];
+        int xBase = X * b;
+        int yBase = Y * b;
+        int width = Math.min(b, n + 1 - yBase);
+        for (int xl = b - 1; xl >= 0; xl--) {
+            int row = xl * b;
+            // m nel blocco X, m > x: righe già complete del blocco
+            for (int ml = xl + 1; ml < b; ml++) {
+                int value = left[row + ml];
+                int mRow = ml * b;
+                for (int yl = 0; yl < width; yl++)
+                    tile[row + yl] = Math.max(tile[row + yl], value + tile[mRow + yl]);
+            }
+            // m nel blocco Y, m < y: ogni cella completata si propaga alle
+            // successive della riga
+            int x = xBase + xl;
+            for (int yl = 0; yl < width; yl++) {
+                int y = yBase + yl;
+                int value = y == x + 1 ? 0
+                        : Math.max(tile[row + yl], get(x + 1, y - 1) + bond(x, y - 1));
+                tile[row + yl] = value;
+                int mRow = yl * b;
+                for (int zl = yl + 1; zl < width; zl++)
+                    tile[row + zl] = Math.max(tile[row + zl], value + right[mRow + zl]);
+            }
+        }
+    }
+
+    private int bond(int i, int j) {
+        return Nucleotides.canPair(codes[i], codes[j]) ? 1 : 0;
+    }
+
+    /*
+     * Valore di E(x, y), con x <= y.
+     */
+    private int get(int x, int y) {
+        int b = tileSize;
+        int X = x / b;
+        return tiles[X][y / b - X][(x % b) * b + y % b];
+    }
+
+    private void set(int x, int y, int value) {
+        int b = tileSize;
+        int X = x / b;
+        tiles[X][y / b - X][(x % b) * b + y % b] = value;
+    }
+
+    /*
+     * Vista della matrice di Nussinov N(i, j) = E(i, j + 1) per il traceback
+     * comune. Le scritture passano ai blocchi di E; le celle con j < i sono
+     * gli intervalli vuoti e restano 0.
+     */
+    private final class BoundaryView extends NussinovMatrix {
+
+        BoundaryView(int size) {
+            super(size);
+        }
+
+        @Override
+        int get(int i, int j) {
+            return j < i ? 0 : ValiantNussinovFolder.this.get(i, j + 1);
+        }
+
+        @Override
+        void set(int i, int j, int value) {
+            if (j >= i)
+                ValiantNussinovFolder.this.set(i, j + 1, value);
+        }
+
+    }
+
+    @Override
+    public boolean isFolded() {
+        return optimalSubstructure != null;
+    }
+
+    @Override
+    public SecondaryStructure getOneOptimalStructure() {
+        if (!isFolded())
+            throw new IllegalStateException();
+        return optimalSubstructure;
+    }
+
+}
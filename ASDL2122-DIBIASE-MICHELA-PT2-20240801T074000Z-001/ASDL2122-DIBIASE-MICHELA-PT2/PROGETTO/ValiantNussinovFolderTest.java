@@ -0,0 +1,53 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di Test per la classe ValiantNussinovFolder
+ *
+ */
+class ValiantNussinovFolderTest {
+
+    @Test
+    final void testGetOneOptimalStructure() {
+        ValiantNussinovFolder folder = new ValiantNussinovFolder("GCACGACG");
+        assertThrows(IllegalStateException.class, () -> folder.getOneOptimalStructure());
+        folder.fold();
+        assertTrue(folder.isFolded());
+        assertEquals(3, folder.getOneOptimalStructure().getCardinality());
+    }
+
+    @Test
+    final void testSameCardinalityAsNussinovFolder() {
+        Random random = new Random(37);
+        int[] tileSizes = { 1, 2, 3, 7, 16, ValiantNussinovFolder.DEFAULT_TILE_SIZE };
+        for (int length = 0; length < 300; length += 11) {
+            String sequence = RandomSequences.generate(random, length);
+            NussinovFolder nussinov = new NussinovFolder(sequence);
+            int expected = nussinov.computeOptimalCardinality();
+            for (int tileSize : tileSizes) {
+                ValiantNussinovFolder valiant = new ValiantNussinovFolder(sequence);
+                valiant.setTileSize(tileSize);
+                valiant.fold();
+                SecondaryStructure structure = valiant.getOneOptimalStructure();
+                assertEquals(expected, structure.getCardinality());
+                assertFalse(structure.isPseudoknotted());
+                assertEquals(expected, valiant.computeOptimalCardinality());
+            }
+        }
+    }
+
+    @Test
+    final void testSetTileSize() {
+        ValiantNussinovFolder folder = new ValiantNussinovFolder("GCAU");
+        assertEquals(ValiantNussinovFolder.DEFAULT_TILE_SIZE, folder.getTileSize());
+        assertThrows(IllegalArgumentException.class, () -> folder.setTileSize(0));
+        folder.setTileSize(2);
+        assertEquals(2, folder.getTileSize());
+    }
+
+}
@@ -0,0 +1,351 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import java.util.Arrays;
+
+//ATTENZIONE: è vietato includere import a pacchetti che non siano della Java SE
+
+/**
+ * Algoritmo di Zuker per trovare, data una sequenza di nucleotidi, una
+ * struttura secondaria senza pseudonodi di minima energia libera secondo il
+ * modello ai primi vicini di {@code TurnerEnergyModel}.
+ *
+ * Le matrici sono quelle classiche: {@code V(i, j)} è l'energia minima di
+ * {@code [i, j]} con i legato a j, {@code WM(i, j)} quella di un tratto di
+ * ciclo multiplo con almeno un ramo e {@code W(j)} quella del prefisso che
+ * termina in j. I cicli interni sono limitati a {@code maxLoopSize} nucleotidi
+ * non legati, quindi il loro contributo costa {@code O(n^2 * maxLoopSize^2)}
+ * e il tempo complessivo resta {@code O(n^3)}. V e WM dipendono solo da
+ * intervalli più corti e vengono riempite per anti-diagonali, in parallelo sul
+ * {@code ForkJoinPool} comune, in matrici compatte di interi.
+ *
+ */
+public class ZukerFolder implements FoldingAlgorithm {
+
+    /**
+     * Massimo numero di default di nucleotidi non legati in un ciclo interno.
+     */
+    public static final int DEFAULT_MAX_LOOP_SIZE = 30;
+
+    private static final int INF = TurnerEnergyModel.INF;
+
+    private final String primarySequence;
+
+    private final byte[] codes;
+
+    private final int maxLoopSize;
+
+    private long parallelThreshold;
+
+    private SecondaryStructure optimalSubstructure;
+
+    private NussinovMatrix closed;
+
+    private NussinovMatrix multi;
+
+    /*
+     * exterior[j + 1] è l'energia minima del prefisso [0, j]
+     */
+    private int[] exterior;
+
+    /**
+     * Costruisce un solver che utilizza l'algoritmo di Zuker con cicli interni
+     * di al più {@code DEFAULT_MAX_LOOP_SIZE} nucleotidi.
+     *
+     * @param primarySequence
+     *                            la sequenza di nucleotidi di cui fare il
+     *                            folding
+     *
+     * @throws IllegalArgumentException
+     *                                      se la primarySequence contiene dei
+     *                                      codici di nucleotidi sconosciuti
+     * @throws NullPointerException
+     *                                      se la sequenza di nucleotidi è nulla
+     */
+    public ZukerFolder(String primarySequence) {
+        this(primarySequence, DEFAULT_MAX_LOOP_SIZE);
+    }
+
+    /**
+     * Costruisce un solver che utilizza l'algoritmo di Zuker.
+     *
+     * @param primarySequence
+     *                            la sequenza di nucleotidi di cui fare il
+     *                            folding
+     * @param maxLoopSize
+     *                            il massimo numero di nucleotidi non legati in
+     *                            un rigonfiamento o ciclo interno
+     *
+     * @throws IllegalArgumentException
+     *                                      se la primarySequence contiene dei
+     *                                      codici di nucleotidi sconosciuti o
+     *                                      se maxLoopSize è negativo
+     * @throws NullPointerException
+     *                                      se la sequenza di nucleotidi è nulla
+     */
+    public ZukerFolder(String primarySequence, int maxLoopSize) {
+        if (primarySequence == null)
+            throw new NullPointerException(
+                    "Tentativo di costruire un solutore Zuker a partire da una sequenza nulla");
+        if (maxLoopSize < 0)
+            throw new IllegalArgumentException(
+                    "La dimensione massima dei cicli interni non può essere negativa");
+        String seq = primarySequence.toUpperCase().trim();
+        // check bases in the primary structure - IUPAC nucleotide codes
+        this.codes = Nucleotides.encode(seq);
+        this.primarySequence = seq;
+        this.maxLoopSize = maxLoopSize;
+        this.parallelThreshold = AntiDiagonalWavefront.DEFAULT_THRESHOLD;
+        this.optimalSubstructure = null;
+    }
+
+    /**
+     * Imposta la soglia di lavoro (celle di un segmento di diagonale per
+     * lunghezza della diagonale) sotto la quale il riempimento calcola un
+     * segmento sequenzialmente.
+     *
+     * @param parallelThreshold
+     *                              la nuova soglia
+     *
+     * @throws IllegalArgumentException
+     *                                      se la soglia non è positiva
+     */
+    public void setParallelThreshold(long parallelThreshold) {
+        if (parallelThreshold <= 0)
+            throw new IllegalArgumentException(
+                    "La soglia di parallelismo deve essere positiva");
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Restituisce il massimo numero di nucleotidi non legati in un ciclo
+     * interno.
+     *
+     * @return la dimensione massima dei cicli interni
+     */
+    public int getMaxLoopSize() {
+        return this.maxLoopSize;
+    }
+
+    @Override
+    public String getName() {
+        return "ZukerFolder";
+    }
+
+    @Override
+    public String getSequence() {
+        return this.primarySequence;
+    }
+
+    @Override
+    public void fold() {
+        fill();
+        optimalSubstructure = traceback();
+    }
+
+    /**
+     * Restituisce l'energia libera della struttura calcolata da
+     * {@code fold()}.
+     *
+     * @return l'energia libera minima in kcal/mol
+     *
+     * @throws IllegalStateException
+     *                                   se il folding non è ancora stato
+     *                                   eseguito
+     */
+    public double getMinimumFreeEnergy() {
+        if (!isFolded())
+            throw new IllegalStateException();
+        return exterior[primarySequence.length()] / 100.0;
+    }
+
+    private void fill() {
+        int n = primarySequence.length();
+        closed = NussinovMatrix.create(n, TriangularLayout.ROW_MAJOR, Integer.MAX_VALUE);
+        multi = NussinovMatrix.create(n, TriangularLayout.ROW_MAJOR, Integer.MAX_VALUE);
+        AntiDiagonalWavefront.run(n, 0, false, true, parallelThreshold, this::fillDiagonal);
+        exterior = new int[n + 1];
+        for (int j = 0; j < n; j++) {
+            int best = exterior[j];
+            for (int k = 0; k + TurnerEnergyModel.MIN_HAIRPIN < j; k++) {
+                int val = exterior[k] + closed.get(k, j) + terminalPenalty(k, j);
+                if (val < best)
+                    best = val;
+            }
+            exterior[j + 1] = best;
+        }
+    }
+
+    private void fillDiagonal(int d, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int j = i + d;
+            int v = closedEnergy(i, j);
+            closed.set(i, j, v);
+            multi.set(i, j, multiEnergy(i, j, v));
+        }
+    }
+
+    /*
+     * V(i, j): forcina, ciclo interno limitato o ciclo multiplo chiuso da
+     * (i, j).
+     */
+    private int closedEnergy(int i, int j) {
+        int type = TurnerEnergyModel.pairType(codes[i], codes[j]);
+        if (type < 0 || j - i - 1 < TurnerEnergyModel.MIN_HAIRPIN)
+            return INF;
+        int best = TurnerEnergyModel.hairpin(j - i - 1);
+        for (int p = i + 1; p <= Math.min(i + 1 + maxLoopSize, j - 2); p++) {
+            int left = p - i - 1;
+            for (int q = j - 1; q > p && left + (j - q - 1) <= maxLoopSize; q--) {
+                int val = interiorEnergy(i, j, p, q, type);
+                if (val < best)
+                    best = val;
+            }
+        }
+        return Math.min(best, multiloopEnergy(i, j, type));
+    }
+
+    private int interiorEnergy(int i, int j, int p, int q, int type) {
+        int inner = TurnerEnergyModel.pairType(codes[q], codes[p]);
+        int v = closed.get(p, q);
+        if (inner < 0 || v >= INF)
+            return INF;
+        return v + TurnerEnergyModel.interior(type, inner, p - i - 1, j - q - 1);
+    }
+
+    private int multiloopEnergy(int i, int j, int type) {
+        int best = INF;
+        for (int u = i + 1; u < j - 1; u++) {
+            int val = multi.get(i + 1, u) + multi.get(u + 1, j - 1);
+            if (val < best)
+                best = val;
+        }
+        if (best >= INF)
+            return INF;
+        return best + TurnerEnergyModel.ML_CLOSING + TurnerEnergyModel.ML_BRANCH
+                + TurnerEnergyModel.terminalPenalty(type);
+    }
+
+    /*
+     * WM(i, j): un ramo chiuso da (i, j), un nucleotide non legato a un
+     * estremo, oppure due tratti con almeno un ramo ciascuno.
+     */
+    private int multiEnergy(int i, int j, int v) {
+        int best = branchEnergy(i, j, v);
+        if (i < j) {
+            best = Math.min(best, multi.get(i + 1, j) + TurnerEnergyModel.ML_UNPAIRED);
+            best = Math.min(best, multi.get(i, j - 1) + TurnerEnergyModel.ML_UNPAIRED);
+        }
+        for (int u = i; u < j; u++)
+            best = Math.min(best, multi.get(i, u) + multi.get(u + 1, j));
+        return Math.min(best, INF);
+    }
+
+    private int branchEnergy(int i, int j, int v) {
+        if (v >= INF)
+            return INF;
+        return v + TurnerEnergyModel.ML_BRANCH + terminalPenalty(i, j);
+    }
+
+    private int terminalPenalty(int i, int j) {
+        return TurnerEnergyModel.terminalPenalty(TurnerEnergyModel.pairType(codes[i], codes[j]));
+    }
+
+    /*
+     * Ricostruisce una struttura di energia minima con una pila esplicita di
+     * compiti: un prefisso (W), una coppia (V) o un tratto di ciclo multiplo
+     * (WM).
+     */
+    private SecondaryStructure traceback() {
+        SecondaryStructure structure = new SecondaryStructure(primarySequence);
+        int[] stack = new int[48];
+        int top = 0;
+        stack[top++] = 'W';
+        stack[top++] = 0;
+        stack[top++] = primarySequence.length() - 1;
+        while (top > 0) {
+            int j = stack[--top];
+            int i = stack[--top];
+            int kind = stack[--top];
+            if (stack.length < top + 6)
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+            if (kind == 'W') {
+                if (j < 0)
+                    continue;
+                if (exterior[j + 1] == exterior[j]) {
+                    top = push(stack, top, 'W', 0, j - 1);
+                    continue;
+                }
+                for (int k = 0; k + TurnerEnergyModel.MIN_HAIRPIN < j; k++)
+                    if (exterior[j + 1] == exterior[k] + closed.get(k, j) + terminalPenalty(k, j)) {
+                        top = push(stack, top, 'V', k, j);
+                        top = push(stack, top, 'W', 0, k - 1);
+                        break;
+                    }
+            } else if (kind == 'V') {
+                structure.addBond(new WeakBond(i + 1, j + 1));
+                top = tracebackClosed(stack, top, i, j);
+            } else
+                top = tracebackMulti(stack, top, i, j);
+        }
+        return structure;
+    }
+
+    private int tracebackClosed(int[] stack, int top, int i, int j) {
+        int v = closed.get(i, j);
+        int type = TurnerEnergyModel.pairType(codes[i], codes[j]);
+        if (v == TurnerEnergyModel.hairpin(j - i - 1))
+            return top;
+        for (int p = i + 1; p <= Math.min(i + 1 + maxLoopSize, j - 2); p++) {
+            int left = p - i - 1;
+            for (int q = j - 1; q > p && left + (j - q - 1) <= maxLoopSize; q--)
+                if (v == interiorEnergy(i, j, p, q, type))
+                    return push(stack, top, 'V', p, q);
+        }
+        int rest = v - TurnerEnergyModel.ML_CLOSING - TurnerEnergyModel.ML_BRANCH
+                - TurnerEnergyModel.terminalPenalty(type);
+        for (int u = i + 1; u < j - 1; u++)
+            if (rest == multi.get(i + 1, u) + multi.get(u + 1, j - 1)) {
+                top = push(stack, top, 'M', i + 1, u);
+                return push(stack, top, 'M', u + 1, j - 1);
+            }
+        throw new IllegalStateException("Traceback non riuscito sulla coppia ("
+                + (i + 1) + ", " + (j + 1) + ")");
+    }
+
+    private int tracebackMulti(int[] stack, int top, int i, int j) {
+        int wm = multi.get(i, j);
+        if (wm == branchEnergy(i, j, closed.get(i, j)))
+            return push(stack, top, 'V', i, j);
+        if (i < j && wm == multi.get(i + 1, j) + TurnerEnergyModel.ML_UNPAIRED)
+            return push(stack, top, 'M', i + 1, j);
+        if (i < j && wm == multi.get(i, j - 1) + TurnerEnergyModel.ML_UNPAIRED)
+            return push(stack, top, 'M', i, j - 1);
+        for (int u = i; u < j; u++)
+            if (wm == multi.get(i, u) + multi.get(u + 1, j)) {
+                top = push(stack, top, 'M', i, u);
+                return push(stack, top, 'M', u + 1, j);
+            }
+        throw new IllegalStateException("Traceback non riuscito sul ciclo multiplo ["
+                + (i + 1) + ", " + (j + 1) + "]");
+    }
+
+    private static int push(int[] stack, int top, int kind, int i, int j) {
+        stack[top++] = kind;
+        stack[top++] = i;
+        stack[top++] = j;
+        return top;
+    }
+
+    @Override
+    public boolean isFolded() {
+        return optimalSubstructure != null;
+    }
+
+    @Override
+    public SecondaryStructure getOneOptimalStructure() {
+        if (!isFolded())
+            throw new IllegalStateException();
+        return optimalSubstructure;
+    }
+
+}
@@ -0,0 +1,119 @@
+package it.unicam.cs.asdl2122.pt2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di Test per la classe ZukerFolder
+ *
+ */
+class ZukerFolderTest {
+
+    @Test
+    final void testMatchesExhaustiveSearch() {
+        Random random = new Random(150);
+        for (int maxLoopSize : new int[] { 2, ZukerFolder.DEFAULT_MAX_LOOP_SIZE })
+            for (int t = 0; t < 40; t++) {
+                String sequence = RandomSequences.generate(random, 6 + random.nextInt(11));
+                // tutte le strutture senza pseudonodi della sequenza
+                NussinovFolder nussinov = new NussinovFolder(sequence);
+                nussinov.fold();
+                int best = 0;
+                for (SecondaryStructure s : (Iterable<SecondaryStructure>) nussinov
+                        .suboptimalStructures(sequence.length())::iterator)
+                    best = Math.min(best, energy(s, maxLoopSize));
+                ZukerFolder zuker = new ZukerFolder(sequence, maxLoopSize);
+                zuker.setParallelThreshold(1);
+                zuker.fold();
+                assertEquals(best / 100.0, zuker.getMinimumFreeEnergy(), 1e-9);
+                assertEquals(best, energy(zuker.getOneOptimalStructure(), maxLoopSize));
+            }
+    }
+
+    @Test
+    final void testLongSequence() {
+        Random random = new Random(151);
+        String sequence = RandomSequences.generate(random, 400);
+        ZukerFolder zuker = new ZukerFolder(sequence);
+        zuker.fold();
+        SecondaryStructure structure = zuker.getOneOptimalStructure();
+        assertFalse(structure.isPseudoknotted());
+        assertTrue(zuker.getMinimumFreeEnergy() < 0);
+        assertEquals(Math.round(zuker.getMinimumFreeEnergy() * 100),
+                energy(structure, ZukerFolder.DEFAULT_MAX_LOOP_SIZE));
+    }
+
+    @Test
+    final void testGetOneOptimalStructure() {
+        ZukerFolder zuker = new ZukerFolder("GGGGAAAACCCC");
+        assertThrows(IllegalStateException.class, () -> zuker.getOneOptimalStructure());
+        zuker.fold();
+        assertEquals("GGGGAAAACCCC\n((((....))))",
+                zuker.getOneOptimalStructure().getDotBracketNotation());
+        assertThrows(IllegalArgumentException.class, () -> new ZukerFolder("GC", -1));
+    }
+
+    /*
+     * Energia di una struttura calcolata ciclo per ciclo, INF se contiene una
+     * forcina troppo corta o un ciclo interno oltre il limite.
+     */
+    private static int energy(SecondaryStructure structure, int maxLoopSize) {
+        byte[] codes = Nucleotides.encode(structure.getPrimarySequence());
+        int n = codes.length;
+        int[] partner = new int[n];
+        java.util.Arrays.fill(partner, -1);
+        for (WeakBond bond : structure.getBonds()) {
+            partner[bond.getI() - 1] = bond.getJ() - 1;
+            partner[bond.getJ() - 1] = bond.getI() - 1;
+        }
+        int total = 0;
+        // coppie del ciclo esterno
+        for (int i = 0; i < n; i++)
+            if (partner[i] > i) {
+                total += TurnerEnergyModel.terminalPenalty(type(codes, i, partner[i]));
+                i = partner[i];
+            }
+        for (int x = 0; x < n; x++)
+            if (partner[x] > x)
+                total += loopEnergy(codes, partner, x, partner[x], maxLoopSize);
+        return Math.min(total, TurnerEnergyModel.INF);
+    }
+
+    private static int loopEnergy(byte[] codes, int[] partner, int i, int j, int maxLoopSize) {
+        List<Integer> children = new ArrayList<>();
+        int unpaired = 0;
+        for (int k = i + 1; k < j; k++)
+            if (partner[k] > k) {
+                children.add(k);
+                k = partner[k];
+            } else
+                unpaired++;
+        int type = type(codes, i, j);
+        if (children.isEmpty())
+            return TurnerEnergyModel.hairpin(j - i - 1);
+        if (children.size() == 1) {
+            int p = children.get(0);
+            int q = partner[p];
+            if (unpaired > maxLoopSize)
+                return TurnerEnergyModel.INF;
+            return TurnerEnergyModel.interior(type, type(codes, q, p), p - i - 1, j - q - 1);
+        }
+        int energy = TurnerEnergyModel.ML_CLOSING + TurnerEnergyModel.ML_BRANCH
+                + TurnerEnergyModel.terminalPenalty(type)
+                + unpaired * TurnerEnergyModel.ML_UNPAIRED;
+        for (int p : children)
+            energy += TurnerEnergyModel.ML_BRANCH
+                    + TurnerEnergyModel.terminalPenalty(type(codes, p, partner[p]));
+        return energy;
+    }
+
+    private static int type(byte[] codes, int i, int j) {
+        return TurnerEnergyModel.pairType(codes[i], codes[j]);
+    }
+
+}